@@ -0,0 +1,88 @@
+package com.spikes2212.control;
+
+import edu.wpi.first.wpilibj.controller.PIDController;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks a {@link PIDLoop} against WPILib's {@link PIDController}, both per sample and over a whole
+ * recorded signal.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PIDLoopBenchmark {
+
+    private static final int SIGNAL_LENGTH = 4096;
+
+    private double[] signal, out;
+    private int index;
+    private PIDController wpilibController;
+    private PIDLoop pidLoop, settingsPIDLoop, filteredPIDLoop;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(2212);
+        signal = new double[SIGNAL_LENGTH];
+        out = new double[SIGNAL_LENGTH];
+        for(int i = 0; i < SIGNAL_LENGTH; i++) {
+            signal[i] = Math.sin(i / 50.0) + random.nextGaussian() * 0.1;
+        }
+        wpilibController = new PIDController(0.5, 0.1, 0.05);
+        wpilibController.setSetpoint(1);
+        pidLoop = new PIDLoop(0.5, 0.1, 0.05);
+        pidLoop.setSetpoint(1);
+        settingsPIDLoop = new PIDLoop(new PIDSettings(() -> 0.5, () -> 0.1, () -> 0.05, () -> 0.05, () -> 1));
+        settingsPIDLoop.setSetpoint(1);
+        filteredPIDLoop = new PIDLoop(0.5, 0.1, 0.05);
+        filteredPIDLoop.setDerivativeFilterTime(0.05);
+        filteredPIDLoop.setSetpoint(1);
+    }
+
+    @Benchmark
+    public double wpilib() {
+        index = (index + 1) & (SIGNAL_LENGTH - 1);
+        return wpilibController.calculate(signal[index]);
+    }
+
+    @Benchmark
+    public double pidLoop() {
+        index = (index + 1) & (SIGNAL_LENGTH - 1);
+        return pidLoop.calculate(signal[index]);
+    }
+
+    /**
+     * Includes checking the version of supplier backed settings on every sample.
+     */
+    @Benchmark
+    public double pidLoopWithSettings() {
+        index = (index + 1) & (SIGNAL_LENGTH - 1);
+        return settingsPIDLoop.calculate(signal[index]);
+    }
+
+    @Benchmark
+    public double filteredPIDLoop() {
+        index = (index + 1) & (SIGNAL_LENGTH - 1);
+        return filteredPIDLoop.calculate(signal[index]);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SIGNAL_LENGTH)
+    public double[] wpilibSignal() {
+        for(int i = 0; i < SIGNAL_LENGTH; i++) {
+            out[i] = wpilibController.calculate(signal[i]);
+        }
+        return out;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SIGNAL_LENGTH)
+    public double[] pidLoopSignal() {
+        return pidLoop.calculate(signal, out);
+    }
+}
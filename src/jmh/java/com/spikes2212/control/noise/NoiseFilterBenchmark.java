@@ -0,0 +1,87 @@
+package com.spikes2212.control.noise;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the {@link NoiseFilter}s over a recorded-like noisy signal.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NoiseFilterBenchmark {
+
+    /**
+     * The filter's window, in samples. Filters with a weight instead of a window use {@code 1 / window},
+     * and low-pass filters have a cutoff of one cycle per window.
+     */
+    @Param({"5", "25", "125"})
+    public int window;
+
+    @Param({"exponential", "runningAverage", "movingAverage", "median", "hampel", "butterworth", "kalman",
+            "pipeline"})
+    public String filter;
+
+    private static final int SIGNAL_LENGTH = 4096;
+
+    private double[] signal, out;
+    private int index;
+    private NoiseFilter noiseFilter;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(2212);
+        signal = new double[SIGNAL_LENGTH];
+        out = new double[SIGNAL_LENGTH];
+        for(int i = 0; i < SIGNAL_LENGTH; i++) {
+            signal[i] = Math.sin(i / 50.0) + random.nextGaussian() * 0.1;
+        }
+        noiseFilter = create(filter, window);
+    }
+
+    static NoiseFilter create(String filter, int window) {
+        switch(filter) {
+            case "exponential":
+                return new ExponentialFilter(1.0 / window);
+            case "runningAverage":
+                return new RunningAverageFilter();
+            case "movingAverage":
+                return new MovingAverageFilter(window);
+            case "median":
+                return new SlidingMedianFilter(window);
+            case "hampel":
+                return new HampelFilter(window);
+            case "butterworth":
+                return BiquadFilter.lowPass(50.0 / window, 50, 4);
+            case "kalman":
+                return new KalmanFilter(0.1, 1, 0.02);
+            case "pipeline":
+                return new FilterPipeline.Builder()
+                        .clamp(-2, 2)
+                        .median(window)
+                        .lowPass(50.0 / window, 50, 2)
+                        .rateLimit(10, 0.02)
+                        .build();
+            default:
+                throw new IllegalArgumentException("unknown filter " + filter);
+        }
+    }
+
+    @Benchmark
+    public double calculate() {
+        index = (index + 1) & (SIGNAL_LENGTH - 1);
+        return noiseFilter.calculate(signal[index]);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SIGNAL_LENGTH)
+    public double[] calculateSignal() {
+        noiseFilter.calculate(signal, out, SIGNAL_LENGTH);
+        return out;
+    }
+}
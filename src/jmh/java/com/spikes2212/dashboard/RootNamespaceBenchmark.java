@@ -0,0 +1,44 @@
+package com.spikes2212.dashboard;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks {@link RootNamespace#update()} with different amounts of fields.
+ * Runs against a local NetworkTables instance, so no robot or dashboard is needed.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RootNamespaceBenchmark {
+
+    /**
+     * The amount of fields of each type.
+     */
+    @Param({"10", "100", "500"})
+    public int fields;
+
+    private RootNamespace namespace;
+    private double value;
+
+    @Setup
+    public void setup() {
+        namespace = new RootNamespace("benchmark" + fields);
+        for(int i = 0; i < fields; i++) {
+            int field = i;
+            namespace.putNumber("number" + i, () -> value + field);
+            namespace.putBoolean("boolean" + i, () -> ((int)value + field) % 2 == 0);
+            namespace.putString("string" + i, () -> "string" + field);
+        }
+    }
+
+    @Benchmark
+    public void update() {
+        value++;
+        namespace.update();
+    }
+}
@@ -0,0 +1,34 @@
+package com.spikes2212.path;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks a single odometry update.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OdometryHandlerBenchmark {
+
+    private double left, right, yaw;
+    private OdometryHandler odometryHandler;
+
+    @Setup
+    public void setup() {
+        odometryHandler = new OdometryHandler(() -> left, () -> right, () -> yaw, 0, 0);
+    }
+
+    @Benchmark
+    public double calculate() {
+        left += 0.02;
+        right += 0.025;
+        yaw += 0.1;
+        odometryHandler.calculate();
+        return odometryHandler.getX();
+    }
+}
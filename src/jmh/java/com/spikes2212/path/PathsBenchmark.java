@@ -0,0 +1,60 @@
+package com.spikes2212.path;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks path generation for paths of different lengths.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PathsBenchmark {
+
+    /**
+     * The approximate amount of points in the generated path.
+     */
+    @Param({"200", "2000", "20000"})
+    public int points;
+
+    private static final double SPACING = 0.01;
+
+    private List<Waypoint> waypoints;
+    private PathBuffer buffer;
+
+    @Setup
+    public void setup() {
+        double length = points * SPACING;
+        waypoints = new ArrayList<>();
+        for(int i = 0; i <= 4; i++) {
+            waypoints.add(new Waypoint(i % 2 == 0 ? 0 : length / 8, length * i / 4));
+        }
+        buffer = new PathBuffer(points * 2);
+    }
+
+    @Benchmark
+    public List<Waypoint> generateIterative() {
+        return Paths.generate(waypoints, SPACING, 0.8, 0.001, 2, 1, 1, SmoothingMethod.ITERATIVE, null);
+    }
+
+    @Benchmark
+    public List<Waypoint> generateDirect() {
+        return Paths.generate(waypoints, SPACING, 0.8, 0.001, 2, 1, 1, SmoothingMethod.DIRECT, null);
+    }
+
+    @Benchmark
+    public PathBuffer generateDirectIntoBuffer() {
+        return Paths.generate(buffer, waypoints, SPACING, 0.8, 0.001, 2, 1, 1, SmoothingMethod.DIRECT, null);
+    }
+
+    @Benchmark
+    public PathBuffer generateSpline() {
+        return SplinePaths.generate(buffer, waypoints, SPACING, 2, 1, 1);
+    }
+}
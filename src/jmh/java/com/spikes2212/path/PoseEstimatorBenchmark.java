@@ -0,0 +1,60 @@
+package com.spikes2212.path;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks {@link PoseEstimator} updates, including vision measurements which are replayed
+ * over different amounts of steps.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PoseEstimatorBenchmark {
+
+    /**
+     * The latency of the vision measurements, in odometry steps.
+     */
+    @Param({"1", "20", "199"})
+    public int latency;
+
+    private static final double PERIOD = 0.005;
+
+    private double left, right, yaw, time;
+    private PoseEstimator poseEstimator;
+
+    @Setup
+    public void setup() {
+        poseEstimator = new PoseEstimator(() -> left, () -> right, () -> yaw, 0, 0, () -> time, 0.05, 0.1,
+                PoseEstimator.DEFAULT_CAPACITY);
+        for(int i = 0; i < PoseEstimator.DEFAULT_CAPACITY; i++) {
+            step();
+        }
+    }
+
+    private void step() {
+        left += 0.01;
+        right += 0.011;
+        yaw += 0.05;
+        time += PERIOD;
+        poseEstimator.calculate();
+    }
+
+    @Benchmark
+    public double calculate() {
+        step();
+        return poseEstimator.getX();
+    }
+
+    @Benchmark
+    public double calculateWithVision() {
+        step();
+        poseEstimator.addVisionMeasurement(poseEstimator.getX() + 0.05, poseEstimator.getY() - 0.05,
+                time - latency * PERIOD);
+        return poseEstimator.getX();
+    }
+}
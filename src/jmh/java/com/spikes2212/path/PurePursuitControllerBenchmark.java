@@ -0,0 +1,73 @@
+package com.spikes2212.path;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks a single control loop tick of {@link PurePursuitController} and {@link TrajectoryController}
+ * while driving along paths of different lengths.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PurePursuitControllerBenchmark {
+
+    @Param({"200", "2000", "20000"})
+    public int points;
+
+    private static final double PERIOD = 0.02;
+
+    private double left, right, time;
+    private OdometryHandler odometryHandler;
+    private PurePursuitController purePursuitController;
+    private TrajectoryController trajectoryController;
+    private final double[] speeds = new double[2];
+
+    @Setup
+    public void setup() {
+        PathBuffer path = Paths.generate(new PathBuffer(), Arrays.asList(new Waypoint(0, 0),
+                new Waypoint(0.5, points * 0.005), new Waypoint(0, points * 0.01)), 0.01, 0.8, 0.001, 2, 1, 1,
+                SmoothingMethod.DIRECT, null);
+        odometryHandler = new OdometryHandler(() -> left, () -> right, () -> 0.0, 0, 0);
+        purePursuitController = new PurePursuitController(odometryHandler, path, 0.3, 1, 0.6);
+        trajectoryController = new TrajectoryController(odometryHandler, new Trajectory(path, 1), 0.3, 0.6,
+                () -> time);
+        restart();
+    }
+
+    private void restart() {
+        left = right = time = 0;
+        odometryHandler.set(0, 0);
+        purePursuitController.reset();
+        trajectoryController.reset();
+    }
+
+    private void drive() {
+        left += speeds[0] * PERIOD;
+        right += speeds[1] * PERIOD;
+        time += PERIOD;
+        odometryHandler.calculate();
+    }
+
+    @Benchmark
+    public double[] purePursuitTick() {
+        if(purePursuitController.done()) restart();
+        purePursuitController.getTargetSpeeds(speeds);
+        if(Double.isInfinite(speeds[0])) restart();
+        else drive();
+        return speeds;
+    }
+
+    @Benchmark
+    public double[] trajectoryTick() {
+        if(trajectoryController.done()) restart();
+        trajectoryController.getTargetSpeeds(speeds);
+        drive();
+        return speeds;
+    }
+}
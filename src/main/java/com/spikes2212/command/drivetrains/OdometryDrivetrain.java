@@ -23,6 +23,6 @@ public abstract class OdometryDrivetrain extends TankDrivetrain {
 
     @Override
     public void periodic() {
-        getHandler().calculate();
+        if(!getHandler().isThreadRunning()) getHandler().calculate();
     }
 }
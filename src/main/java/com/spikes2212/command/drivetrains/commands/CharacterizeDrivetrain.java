@@ -0,0 +1,130 @@
+package com.spikes2212.command.drivetrains.commands;
+
+import com.spikes2212.command.drivetrains.TankDrivetrain;
+import com.spikes2212.control.FeedForwardEstimator;
+import com.spikes2212.util.Suppliers;
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj2.command.CommandBase;
+
+import java.util.function.DoubleSupplier;
+import java.util.function.Supplier;
+
+/**
+ * This command drives a {@link TankDrivetrain} straight through a {@link FeedForwardEstimator.Test}, and updates
+ * a {@link FeedForwardEstimator} for each side with its output, velocity and acceleration every cycle.
+ * The estimates can be read from the estimators while the command runs.
+ * <p>
+ * The acceleration is the change in velocity between cycles, so the velocities should not be too noisy.
+ * A quasistatic test ends when the output reaches its maximum, and a dynamic test runs until it is interrupted,
+ * so it is usually run with a timeout.
+ *
+ * @see FeedForwardEstimator
+ */
+public class CharacterizeDrivetrain extends CommandBase {
+
+    protected final TankDrivetrain drivetrain;
+    protected final DoubleSupplier leftVelocity, rightVelocity;
+    protected final FeedForwardEstimator leftEstimator, rightEstimator;
+    private final FeedForwardEstimator.Test test;
+
+    /**
+     * The output's growth per second for a quasistatic test, or the output for a dynamic test.
+     */
+    private final double rate;
+
+    /**
+     * Samples whose velocity is not above this are ignored, since the side hasn't started moving.
+     */
+    private final double minVelocity;
+
+    private double startTime, lastTime, lastLeftVelocity, lastRightVelocity, lastOutput;
+    private boolean started;
+
+    /**
+     * This constructs a new {@link CharacterizeDrivetrain} command.
+     *
+     * @param drivetrain     the drivetrain this command requires and moves.
+     * @param leftVelocity   a {@link DoubleSupplier} supplying the left side's velocity.
+     * @param rightVelocity  a {@link DoubleSupplier} supplying the right side's velocity.
+     * @param leftEstimator  the estimator of the left side.
+     * @param rightEstimator the estimator of the right side.
+     * @param test           the test to drive the drivetrain through.
+     * @param rate           the output's growth per second for a quasistatic test, or the output for a
+     *                       dynamic test. Negative values drive the drivetrain backwards.
+     * @param minVelocity    the velocity below which a side is considered to not be moving.
+     */
+    public CharacterizeDrivetrain(TankDrivetrain drivetrain, DoubleSupplier leftVelocity,
+                                  DoubleSupplier rightVelocity, FeedForwardEstimator leftEstimator,
+                                  FeedForwardEstimator rightEstimator, FeedForwardEstimator.Test test, double rate,
+                                  double minVelocity) {
+        addRequirements(drivetrain);
+        this.drivetrain = drivetrain;
+        this.leftVelocity = leftVelocity;
+        this.rightVelocity = rightVelocity;
+        this.leftEstimator = leftEstimator;
+        this.rightEstimator = rightEstimator;
+        this.test = test;
+        this.rate = rate;
+        this.minVelocity = minVelocity;
+    }
+
+    public CharacterizeDrivetrain(TankDrivetrain drivetrain, Supplier<Double> leftVelocity,
+                                  Supplier<Double> rightVelocity, FeedForwardEstimator leftEstimator,
+                                  FeedForwardEstimator rightEstimator, FeedForwardEstimator.Test test, double rate,
+                                  double minVelocity) {
+        this(drivetrain, Suppliers.unbox(leftVelocity), Suppliers.unbox(rightVelocity), leftEstimator,
+                rightEstimator, test, rate, minVelocity);
+    }
+
+    public FeedForwardEstimator getLeftEstimator() {
+        return leftEstimator;
+    }
+
+    public FeedForwardEstimator getRightEstimator() {
+        return rightEstimator;
+    }
+
+    @Override
+    public void initialize() {
+        startTime = Timer.getFPGATimestamp();
+        started = false;
+    }
+
+    /**
+     * adds the last cycle to the estimators and drives with the test's output
+     */
+    @Override
+    public void execute() {
+        double now = Timer.getFPGATimestamp();
+        double leftVelocity = this.leftVelocity.getAsDouble(), rightVelocity = this.rightVelocity.getAsDouble();
+        if(started && now > lastTime) {
+            double dt = now - lastTime;
+            if(Math.abs(leftVelocity) > minVelocity) {
+                leftEstimator.add(lastOutput, leftVelocity, (leftVelocity - lastLeftVelocity) / dt);
+            }
+            if(Math.abs(rightVelocity) > minVelocity) {
+                rightEstimator.add(lastOutput, rightVelocity, (rightVelocity - lastRightVelocity) / dt);
+            }
+        }
+        lastTime = now;
+        lastLeftVelocity = leftVelocity;
+        lastRightVelocity = rightVelocity;
+        started = true;
+        lastOutput = getOutput();
+        drivetrain.tankDrive(lastOutput, lastOutput, false);
+    }
+
+    @Override
+    public void end(boolean interrupted) {
+        drivetrain.stop();
+    }
+
+    @Override
+    public boolean isFinished() {
+        return test == FeedForwardEstimator.Test.QUASISTATIC && Math.abs(getOutput()) >= 1;
+    }
+
+    private double getOutput() {
+        return Math.max(-1, Math.min(1, test.getOutput(Timer.getFPGATimestamp() - startTime, rate)));
+    }
+}
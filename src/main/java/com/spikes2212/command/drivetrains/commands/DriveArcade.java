@@ -1,8 +1,11 @@
 package com.spikes2212.command.drivetrains.commands;
 
+import java.util.function.BooleanSupplier;
+import java.util.function.DoubleSupplier;
 import java.util.function.Supplier;
 
 import com.spikes2212.command.drivetrains.TankDrivetrain;
+import com.spikes2212.util.Suppliers;
 import edu.wpi.first.wpilibj2.command.CommandBase;
 
 
@@ -16,9 +19,9 @@ import edu.wpi.first.wpilibj2.command.CommandBase;
 
 public class DriveArcade extends CommandBase {
     protected final TankDrivetrain tankDrivetrain;
-    protected final Supplier<Double> moveValueSupplier;
-    protected final Supplier<Double> rotateValueSupplier;
-    protected final Supplier<Boolean> isFinished;
+    protected final DoubleSupplier moveValueSupplier;
+    protected final DoubleSupplier rotateValueSupplier;
+    protected final BooleanSupplier isFinished;
 
     /**
      * This constructs a new {@link DriveArcade} command that moves the given
@@ -33,6 +36,28 @@ public class DriveArcade extends CommandBase {
      */
     public DriveArcade(TankDrivetrain drivetrain, Supplier<Double> moveValueSupplier,
                        Supplier<Double> rotateValueSupplier, Supplier<Boolean> isFinished) {
+        this(drivetrain, Suppliers.unbox(moveValueSupplier), Suppliers.unbox(rotateValueSupplier),
+                Suppliers.unboxBoolean(isFinished));
+    }
+
+    public DriveArcade(TankDrivetrain drivetrain, Supplier<Double> moveValueSupplier,
+                       Supplier<Double> rotateValueSupplier) {
+        this(drivetrain, moveValueSupplier, rotateValueSupplier, () -> false);
+    }
+
+    /**
+     * This constructs a new {@link DriveArcade} command that moves the given
+     * {@link TankDrivetrain} according to speed values from {@link DoubleSupplier}s
+     * for linear and rotational movements.
+     *
+     * @param drivetrain          the tank drivetrain this command opperates on.
+     * @param moveValueSupplier   the {@link DoubleSupplier} supplying the speed to move forward
+     *                            with. Positive values go forwards.
+     * @param rotateValueSupplier the {@link DoubleSupplier} supplying the speed to turn with.
+     *                            Positive values go left.
+     */
+    public DriveArcade(TankDrivetrain drivetrain, DoubleSupplier moveValueSupplier,
+                       DoubleSupplier rotateValueSupplier, BooleanSupplier isFinished) {
         addRequirements(drivetrain);
         this.tankDrivetrain = drivetrain;
         this.moveValueSupplier = moveValueSupplier;
@@ -40,8 +65,8 @@ public class DriveArcade extends CommandBase {
         this.isFinished = isFinished;
     }
 
-    public DriveArcade(TankDrivetrain drivetrain, Supplier<Double> moveValueSupplier,
-                       Supplier<Double> rotateValueSupplier) {
+    public DriveArcade(TankDrivetrain drivetrain, DoubleSupplier moveValueSupplier,
+                       DoubleSupplier rotateValueSupplier) {
         this(drivetrain, moveValueSupplier, rotateValueSupplier, () -> false);
     }
 
@@ -58,12 +83,12 @@ public class DriveArcade extends CommandBase {
      */
     @Override
     public void execute() {
-        tankDrivetrain.arcadeDrive(moveValueSupplier.get(), rotateValueSupplier.get());
+        tankDrivetrain.arcadeDrive(moveValueSupplier.getAsDouble(), rotateValueSupplier.getAsDouble());
     }
 
     @Override
     public boolean isFinished() {
-        return isFinished.get();
+        return isFinished.getAsBoolean();
     }
 
     @Override
@@ -2,10 +2,11 @@ package com.spikes2212.command.drivetrains.commands;
 
 import com.spikes2212.command.drivetrains.TankDrivetrain;
 import com.spikes2212.control.*;
+import com.spikes2212.util.Suppliers;
 import edu.wpi.first.wpilibj.Timer;
-import edu.wpi.first.wpilibj.controller.PIDController;
 import edu.wpi.first.wpilibj2.command.CommandBase;
 
+import java.util.function.DoubleSupplier;
 import java.util.function.Supplier;
 
 /**
@@ -25,33 +26,43 @@ public class DriveArcadeWithPID extends CommandBase {
     /**
      * The PID Controller for the turning PID loop.
      */
-    private PIDController pidController;
+    private PIDLoop pidController;
 
     private FeedForwardSettings feedForwardSettings;
     private FeedForwardController feedForwardController;
 
+    /**
+     * The version of the feed forward settings which was last applied to the controller.
+     */
+    private int feedForwardVersion = -1;
+
     /**
      * The angle of the drivetrain.
      */
-    private Supplier<Double> source;
+    private DoubleSupplier source;
 
     /**
      * The last time the drivetrain's angle wasn't within the target range.
      */
     private double lastTimeNotOnTarget;
 
+    /**
+     * The time of the last calculation, used to measure the time between calculations.
+     */
+    private double lastTime;
+
     /**
      * The angle the drivetrain should reach.
      */
-    private Supplier<Double> setpoint;
+    private DoubleSupplier setpoint;
 
     /**
      * The speed at which to move the drivetrain forward.
      */
-    private Supplier<Double> moveValue;
+    private DoubleSupplier moveValue;
 
-    public DriveArcadeWithPID(TankDrivetrain drivetrain, Supplier<Double> source, Supplier<Double> setpoint,
-                              Supplier<Double> moveValue, PIDSettings pidSettings,
+    public DriveArcadeWithPID(TankDrivetrain drivetrain, DoubleSupplier source, DoubleSupplier setpoint,
+                              DoubleSupplier moveValue, PIDSettings pidSettings,
                               FeedForwardSettings feedForwardSettings) {
         addRequirements(drivetrain);
         this.drivetrain = drivetrain;
@@ -60,17 +71,39 @@ public class DriveArcadeWithPID extends CommandBase {
         this.feedForwardSettings = feedForwardSettings;
         this.source = source;
         this.moveValue = moveValue;
-        this.pidController = new PIDController(pidSettings.getkP(), pidSettings.getkI(), pidSettings.getkD());
-        this.pidController.setSetpoint(setpoint.get());
+        this.pidController = new PIDLoop(pidSettings);
+        this.pidController.setSetpoint(setpoint.getAsDouble());
         this.feedForwardController = new FeedForwardController(feedForwardSettings.getkS(), feedForwardSettings.getkV(),
-                feedForwardSettings.getkA(), feedForwardSettings.getkG());
+                feedForwardSettings.getkA(), feedForwardSettings.getkG(), 0.02);
     }
 
-    public DriveArcadeWithPID(TankDrivetrain drivetrain, Supplier<Double> source, double setpoint, double moveValue,
+    public DriveArcadeWithPID(TankDrivetrain drivetrain, DoubleSupplier source, double setpoint, double moveValue,
                               PIDSettings pidSettings, FeedForwardSettings feedForwardSettings) {
         this(drivetrain, source, () -> setpoint, () -> moveValue, pidSettings, feedForwardSettings);
     }
 
+    public DriveArcadeWithPID(TankDrivetrain drivetrain, DoubleSupplier source, DoubleSupplier setpoint,
+                              DoubleSupplier moveValue, PIDSettings pidSettings) {
+        this(drivetrain, source, setpoint, moveValue, pidSettings, FeedForwardSettings.EMPTY_FFSETTINGS);
+    }
+
+    public DriveArcadeWithPID(TankDrivetrain drivetrain, DoubleSupplier source, double setpoint, double moveValue,
+                              PIDSettings pidSettings) {
+        this(drivetrain, source, () -> setpoint, () -> moveValue, pidSettings);
+    }
+
+    public DriveArcadeWithPID(TankDrivetrain drivetrain, Supplier<Double> source, Supplier<Double> setpoint,
+                              Supplier<Double> moveValue, PIDSettings pidSettings,
+                              FeedForwardSettings feedForwardSettings) {
+        this(drivetrain, Suppliers.unbox(source), Suppliers.unbox(setpoint), Suppliers.unbox(moveValue), pidSettings,
+                feedForwardSettings);
+    }
+
+    public DriveArcadeWithPID(TankDrivetrain drivetrain, Supplier<Double> source, double setpoint, double moveValue,
+                              PIDSettings pidSettings, FeedForwardSettings feedForwardSettings) {
+        this(drivetrain, Suppliers.unbox(source), setpoint, moveValue, pidSettings, feedForwardSettings);
+    }
+
     public DriveArcadeWithPID(TankDrivetrain drivetrain, Supplier<Double> source, Supplier<Double> setpoint,
                               Supplier<Double> moveValue, PIDSettings pidSettings) {
         this(drivetrain, source, setpoint, moveValue, pidSettings, FeedForwardSettings.EMPTY_FFSETTINGS);
@@ -78,7 +111,13 @@ public class DriveArcadeWithPID extends CommandBase {
 
     public DriveArcadeWithPID(TankDrivetrain drivetrain, Supplier<Double> source, double setpoint, double moveValue,
                               PIDSettings pidSettings) {
-        this(drivetrain, source, () -> setpoint, () -> moveValue, pidSettings);
+        this(drivetrain, Suppliers.unbox(source), setpoint, moveValue, pidSettings);
+    }
+
+    @Override
+    public void initialize() {
+        pidController.reset();
+        lastTime = Timer.getFPGATimestamp() - feedForwardController.getPeriod();
     }
 
     /**
@@ -86,14 +125,18 @@ public class DriveArcadeWithPID extends CommandBase {
      */
     @Override
     public void execute() {
-        pidController.setTolerance(pidSettings.getTolerance());
-        pidController.setPID(pidSettings.getkP(), pidSettings.getkI(), pidSettings.getkD());
-
-        feedForwardController.setGains(feedForwardSettings.getkS(), feedForwardSettings.getkV(),
-                feedForwardSettings.getkA(), feedForwardSettings.getkG());
+        int version = feedForwardSettings.getVersion();
+        if(version != feedForwardVersion) {
+            feedForwardController.setGains(feedForwardSettings.getkS(), feedForwardSettings.getkV(),
+                    feedForwardSettings.getkA(), feedForwardSettings.getkG());
+            feedForwardVersion = version;
+        }
 
-        drivetrain.arcadeDrive(moveValue.get(), pidController.calculate(source.get(), setpoint.get()) +
-                feedForwardController.calculate(setpoint.get()));
+        double now = Timer.getFPGATimestamp(), dt = now - lastTime;
+        lastTime = now;
+        double setpoint = this.setpoint.getAsDouble();
+        drivetrain.arcadeDrive(moveValue.getAsDouble(), pidController.calculate(source.getAsDouble(), setpoint, dt) +
+                feedForwardController.calculate(setpoint, dt));
     }
 
     @Override
@@ -1,8 +1,10 @@
 package com.spikes2212.command.drivetrains.commands;
 
 import com.spikes2212.command.drivetrains.TankDrivetrain;
+import com.spikes2212.util.Suppliers;
 import edu.wpi.first.wpilibj2.command.CommandBase;
 
+import java.util.function.DoubleSupplier;
 import java.util.function.Supplier;
 
 public class DriveCurvature extends CommandBase {
@@ -10,10 +12,14 @@ public class DriveCurvature extends CommandBase {
 
     protected TankDrivetrain drivetrain;
 
-    protected Supplier<Double> speed;
-    protected Supplier<Double> rotation;
+    protected DoubleSupplier speed;
+    protected DoubleSupplier rotation;
 
     public DriveCurvature(TankDrivetrain drivetrain, Supplier<Double> speed, Supplier<Double> rotation) {
+        this(drivetrain, Suppliers.unbox(speed), Suppliers.unbox(rotation));
+    }
+
+    public DriveCurvature(TankDrivetrain drivetrain, DoubleSupplier speed, DoubleSupplier rotation) {
         this.drivetrain = drivetrain;
         this.speed = speed;
         this.rotation = rotation;
@@ -25,7 +31,7 @@ public class DriveCurvature extends CommandBase {
 
     @Override
     public void execute() {
-        drivetrain.curvatureDrive(speed.get(), rotation.get());
+        drivetrain.curvatureDrive(speed.getAsDouble(), rotation.getAsDouble());
     }
 
     @Override
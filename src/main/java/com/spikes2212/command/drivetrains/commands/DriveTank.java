@@ -1,8 +1,11 @@
 package com.spikes2212.command.drivetrains.commands;
 
 import com.spikes2212.command.drivetrains.TankDrivetrain;
+import com.spikes2212.util.Suppliers;
 import edu.wpi.first.wpilibj2.command.CommandBase;
 
+import java.util.function.BooleanSupplier;
+import java.util.function.DoubleSupplier;
 import java.util.function.Supplier;
 
 /**
@@ -11,9 +14,9 @@ import java.util.function.Supplier;
 public class DriveTank extends CommandBase {
 
     protected final TankDrivetrain tankDrivetrain;
-    protected final Supplier<Double> leftSpeedSupplier;
-    protected final Supplier<Double> rightSpeedSupplier;
-    Supplier<Boolean> isFinished;
+    protected final DoubleSupplier leftSpeedSupplier;
+    protected final DoubleSupplier rightSpeedSupplier;
+    BooleanSupplier isFinished;
 
     /**
      * This constructs a new {@link DriveTank} command that moves the given
@@ -40,6 +43,26 @@ public class DriveTank extends CommandBase {
      */
     public DriveTank(TankDrivetrain drivetrain, Supplier<Double> leftSpeedSupplier,
                      Supplier<Double> rightSpeedSupplier, Supplier<Boolean> isFinished) {
+        this(drivetrain, Suppliers.unbox(leftSpeedSupplier), Suppliers.unbox(rightSpeedSupplier),
+                Suppliers.unboxBoolean(isFinished));
+    }
+
+    public DriveTank(TankDrivetrain drivetrain, Supplier<Double> leftSpeedSupplier,
+                     Supplier<Double> rightSpeedSupplier) {
+        this(drivetrain, leftSpeedSupplier, rightSpeedSupplier, () -> false);
+    }
+
+    /**
+     * This constructs a new {@link DriveTank} command that moves the given
+     * {@link TankDrivetrain} acording to speed values from {@link DoubleSupplier}s for left and right sides.<br>
+     * Positive values move forwards.
+     *
+     * @param drivetrain         the drivetrain this command requires and moves.
+     * @param leftSpeedSupplier  the {@link DoubleSupplier} supplying the speed to move in the left side with.
+     * @param rightSpeedSupplier the {@link DoubleSupplier} supplying the speed to move in the right side with.
+     */
+    public DriveTank(TankDrivetrain drivetrain, DoubleSupplier leftSpeedSupplier,
+                     DoubleSupplier rightSpeedSupplier, BooleanSupplier isFinished) {
         addRequirements(drivetrain);
         this.tankDrivetrain = drivetrain;
         this.leftSpeedSupplier = leftSpeedSupplier;
@@ -47,8 +70,8 @@ public class DriveTank extends CommandBase {
         this.isFinished = isFinished;
     }
 
-    public DriveTank(TankDrivetrain drivetrain, Supplier<Double> leftSpeedSupplier,
-                     Supplier<Double> rightSpeedSupplier) {
+    public DriveTank(TankDrivetrain drivetrain, DoubleSupplier leftSpeedSupplier,
+                     DoubleSupplier rightSpeedSupplier) {
         this(drivetrain, leftSpeedSupplier, rightSpeedSupplier, () -> false);
     }
 
@@ -65,12 +88,12 @@ public class DriveTank extends CommandBase {
      */
     @Override
     public void execute() {
-        tankDrivetrain.tankDrive(leftSpeedSupplier.get(), rightSpeedSupplier.get());
+        tankDrivetrain.tankDrive(leftSpeedSupplier.getAsDouble(), rightSpeedSupplier.getAsDouble());
     }
 
     @Override
     public boolean isFinished() {
-        return this.isFinished.get();
+        return this.isFinished.getAsBoolean();
     }
 
     @Override
@@ -1,13 +1,16 @@
 package com.spikes2212.command.drivetrains.commands;
 
 import com.spikes2212.command.drivetrains.TankDrivetrain;
+import com.spikes2212.control.ControlLoop;
 import com.spikes2212.control.FeedForwardController;
 import com.spikes2212.control.FeedForwardSettings;
+import com.spikes2212.control.PIDLoop;
 import com.spikes2212.control.PIDSettings;
+import com.spikes2212.util.Suppliers;
 import edu.wpi.first.wpilibj.Timer;
-import edu.wpi.first.wpilibj.controller.PIDController;
 import edu.wpi.first.wpilibj2.command.CommandBase;
 
+import java.util.function.DoubleSupplier;
 import java.util.function.Supplier;
 
 /**
@@ -32,32 +35,32 @@ public class DriveTankWithPID extends CommandBase {
     /**
      * The PID Controller of the PID loop operating on the left side of the drivetrain.
      */
-    private PIDController leftPIDController;
+    private PIDLoop leftPIDController;
 
     /**
      * The PID Controller of the PID loop operating on the right side of the drivetrain.
      */
-    private PIDController rightPIDController;
+    private PIDLoop rightPIDController;
 
     /**
      * The setpoint the left side of the drivetrain should reach.
      */
-    private Supplier<Double> leftSetpoint;
+    private DoubleSupplier leftSetpoint;
 
     /**
      * The setpoint the right side of the drivetrain should reach.
      */
-    private Supplier<Double> rightSetpoint;
+    private DoubleSupplier rightSetpoint;
 
     /**
      * How far the left side of the drivetrain drove.
      */
-    private Supplier<Double> leftSource;
+    private DoubleSupplier leftSource;
 
     /**
      * How far the right side of the drivetrain drove.
      */
-    private Supplier<Double> rightSource;
+    private DoubleSupplier rightSource;
 
     /**
      * The last time the left side of the drivetrain was not within its target zone.
@@ -69,33 +72,68 @@ public class DriveTankWithPID extends CommandBase {
      */
     private double rightLastTimeNotOnTarget;
 
+    /**
+     * The time of the last calculation, used to measure the time between calculations.
+     */
+    private double lastTime;
+
     private FeedForwardSettings leftFeedForwardSettings;
     private FeedForwardSettings rightFeedForwardSettings;
     private FeedForwardController leftFeedForwardController;
     private FeedForwardController rightFeedForwardController;
 
+    /**
+     * The versions of the feed forward settings which were last applied to the controllers.
+     */
+    private int leftFeedForwardVersion = -1, rightFeedForwardVersion = -1;
+
+    /**
+     * The loop the controllers are calculated on, or {@code null} if they are calculated in {@link #execute()}.
+     */
+    private ControlLoop controlLoop;
+
+    private final Runnable step = this::calculate;
+
     public DriveTankWithPID(TankDrivetrain drivetrain, PIDSettings leftPIDSettings, PIDSettings rightPIDSettings,
-                            Supplier<Double> leftSetpoint, Supplier<Double> rightSetpoint, Supplier<Double> leftSource,
-                            Supplier<Double> rightSource, FeedForwardSettings leftFeedForwardSettings,
+                            DoubleSupplier leftSetpoint, DoubleSupplier rightSetpoint, DoubleSupplier leftSource,
+                            DoubleSupplier rightSource, FeedForwardSettings leftFeedForwardSettings,
                             FeedForwardSettings rightFeedForwardSettings) {
         addRequirements(drivetrain);
         this.drivetrain = drivetrain;
         this.leftPIDSettings = leftPIDSettings;
-        this.leftPIDController = new PIDController(leftPIDSettings.getkP(), leftPIDSettings.getkI(), leftPIDSettings.getkD());
+        this.leftPIDController = new PIDLoop(leftPIDSettings);
         this.rightPIDSettings = rightPIDSettings;
-        this.rightPIDController = new PIDController(rightPIDSettings.getkP(), rightPIDSettings.getkI(), rightPIDSettings.getkD());
+        this.rightPIDController = new PIDLoop(rightPIDSettings);
         this.leftSetpoint = leftSetpoint;
         this.rightSetpoint = rightSetpoint;
         this.leftSource = leftSource;
         this.rightSource = rightSource;
-        this.leftPIDController.setSetpoint(leftSetpoint.get());
-        this.rightPIDController.setSetpoint(rightSetpoint.get());
+        this.leftPIDController.setSetpoint(leftSetpoint.getAsDouble());
+        this.rightPIDController.setSetpoint(rightSetpoint.getAsDouble());
         this.leftFeedForwardSettings = leftFeedForwardSettings;
         this.rightFeedForwardSettings = rightFeedForwardSettings;
         this.leftFeedForwardController = new FeedForwardController(leftFeedForwardSettings.getkS(),
-                leftFeedForwardSettings.getkV(), leftFeedForwardSettings.getkA(), leftFeedForwardSettings.getkG());
+                leftFeedForwardSettings.getkV(), leftFeedForwardSettings.getkA(), leftFeedForwardSettings.getkG(),
+                0.02);
         this.rightFeedForwardController = new FeedForwardController(rightFeedForwardSettings.getkS(),
-                rightFeedForwardSettings.getkV(), rightFeedForwardSettings.getkA(), rightFeedForwardSettings.getkG());
+                rightFeedForwardSettings.getkV(), rightFeedForwardSettings.getkA(), rightFeedForwardSettings.getkG(),
+                0.02);
+    }
+
+    public DriveTankWithPID(TankDrivetrain drivetrain, PIDSettings leftPIDSettings, PIDSettings rightPIDSettings,
+                            DoubleSupplier leftSetpoint, DoubleSupplier rightSetpoint, DoubleSupplier leftSource,
+                            DoubleSupplier rightSource) {
+        this(drivetrain, leftPIDSettings, rightPIDSettings, leftSetpoint, rightSetpoint, leftSource, rightSource,
+                FeedForwardSettings.EMPTY_FFSETTINGS, FeedForwardSettings.EMPTY_FFSETTINGS);
+    }
+
+    public DriveTankWithPID(TankDrivetrain drivetrain, PIDSettings leftPIDSettings, PIDSettings rightPIDSettings,
+                            Supplier<Double> leftSetpoint, Supplier<Double> rightSetpoint, Supplier<Double> leftSource,
+                            Supplier<Double> rightSource, FeedForwardSettings leftFeedForwardSettings,
+                            FeedForwardSettings rightFeedForwardSettings) {
+        this(drivetrain, leftPIDSettings, rightPIDSettings, Suppliers.unbox(leftSetpoint),
+                Suppliers.unbox(rightSetpoint), Suppliers.unbox(leftSource), Suppliers.unbox(rightSource),
+                leftFeedForwardSettings, rightFeedForwardSettings);
     }
 
     public DriveTankWithPID(TankDrivetrain drivetrain, PIDSettings leftPIDSettings, PIDSettings rightPIDSettings,
@@ -106,45 +144,96 @@ public class DriveTankWithPID extends CommandBase {
     }
 
     public DriveTankWithPID(TankDrivetrain drivetrain, PIDSettings leftPIDSettings, PIDSettings rightPIDSettings,
-                            double leftSetpoint, double rightSetpoint, Supplier<Double> leftSource,
-                            Supplier<Double> rightSource, FeedForwardSettings leftFeedForwardSettings,
+                            double leftSetpoint, double rightSetpoint, DoubleSupplier leftSource,
+                            DoubleSupplier rightSource, FeedForwardSettings leftFeedForwardSettings,
                             FeedForwardSettings rightFeedForwardSettings) {
         this(drivetrain, leftPIDSettings, rightPIDSettings, () -> leftSetpoint, () -> rightSetpoint, leftSource,
                 rightSource, leftFeedForwardSettings, rightFeedForwardSettings);
     }
 
     public DriveTankWithPID(TankDrivetrain drivetrain, PIDSettings leftPIDSettings, PIDSettings rightPIDSettings,
-                            double leftSetpoint, double rightSetpoint, Supplier<Double> leftSource,
-                            Supplier<Double> rightSource) {
+                            double leftSetpoint, double rightSetpoint, DoubleSupplier leftSource,
+                            DoubleSupplier rightSource) {
         this(drivetrain, leftPIDSettings, rightPIDSettings, () -> leftSetpoint, () -> rightSetpoint, leftSource,
                 rightSource, FeedForwardSettings.EMPTY_FFSETTINGS, FeedForwardSettings.EMPTY_FFSETTINGS);
     }
 
+    public DriveTankWithPID(TankDrivetrain drivetrain, PIDSettings leftPIDSettings, PIDSettings rightPIDSettings,
+                            double leftSetpoint, double rightSetpoint, Supplier<Double> leftSource,
+                            Supplier<Double> rightSource, FeedForwardSettings leftFeedForwardSettings,
+                            FeedForwardSettings rightFeedForwardSettings) {
+        this(drivetrain, leftPIDSettings, rightPIDSettings, leftSetpoint, rightSetpoint, Suppliers.unbox(leftSource),
+                Suppliers.unbox(rightSource), leftFeedForwardSettings, rightFeedForwardSettings);
+    }
+
+    public DriveTankWithPID(TankDrivetrain drivetrain, PIDSettings leftPIDSettings, PIDSettings rightPIDSettings,
+                            double leftSetpoint, double rightSetpoint, Supplier<Double> leftSource,
+                            Supplier<Double> rightSource) {
+        this(drivetrain, leftPIDSettings, rightPIDSettings, leftSetpoint, rightSetpoint, Suppliers.unbox(leftSource),
+                Suppliers.unbox(rightSource));
+    }
+
+    /**
+     * Calculates the controllers and moves the drivetrain on the given {@link ControlLoop} instead of
+     * in {@link #execute()}. Should be called before the command is scheduled.
+     * The loop is started when the command is initialized, if it isn't running already.
+     *
+     * @param controlLoop the loop to run on
+     * @return this command
+     */
+    public DriveTankWithPID withControlLoop(ControlLoop controlLoop) {
+        this.controlLoop = controlLoop;
+        leftPIDController = new PIDLoop(leftPIDSettings, controlLoop.getPeriod());
+        rightPIDController = new PIDLoop(rightPIDSettings, controlLoop.getPeriod());
+        leftFeedForwardController.setPeriod(controlLoop.getPeriod());
+        rightFeedForwardController.setPeriod(controlLoop.getPeriod());
+        return this;
+    }
+
+    @Override
+    public void initialize() {
+        leftPIDController.reset();
+        rightPIDController.reset();
+        lastTime = Timer.getFPGATimestamp() - leftFeedForwardController.getPeriod();
+        if(controlLoop != null) controlLoop.add(step);
+    }
+
     @Override
     public void execute() {
-        leftPIDController.setSetpoint(rightSetpoint.get());
-        rightPIDController.setSetpoint(leftSetpoint.get());
-        leftPIDController.setTolerance(leftPIDSettings.getTolerance());
-        rightPIDController.setTolerance(rightPIDSettings.getTolerance());
-        leftPIDController.setPID(leftPIDSettings.getkP(), leftPIDSettings.getkI(), leftPIDSettings.getkD());
-        rightPIDController.setPID(rightPIDSettings.getkP(), rightPIDSettings.getkI(), rightPIDSettings.getkD());
-        leftFeedForwardController.setGains(leftFeedForwardSettings.getkS(), leftFeedForwardSettings.getkV(),
-                leftFeedForwardSettings.getkA(), leftFeedForwardSettings.getkG());
-        rightFeedForwardController.setGains(rightFeedForwardSettings.getkS(), rightFeedForwardSettings.getkV(),
-                rightFeedForwardSettings.getkA(), rightFeedForwardSettings.getkG());
-        drivetrain.tankDrive((leftPIDController.calculate(leftSource.get()) +
-                        leftFeedForwardController.calculate(leftSetpoint.get()) / 2),
-                rightPIDController.calculate(rightSource.get()) +
-                        leftFeedForwardController.calculate(rightSetpoint.get()) / 2);
+        if(controlLoop == null) calculate();
+    }
+
+    private synchronized void calculate() {
+        double now = Timer.getFPGATimestamp(), dt = now - lastTime;
+        lastTime = now;
+        double leftSetpoint = this.leftSetpoint.getAsDouble(), rightSetpoint = this.rightSetpoint.getAsDouble();
+        leftFeedForwardVersion = applySettings(leftFeedForwardController, leftFeedForwardSettings,
+                leftFeedForwardVersion);
+        rightFeedForwardVersion = applySettings(rightFeedForwardController, rightFeedForwardSettings,
+                rightFeedForwardVersion);
+        drivetrain.tankDrive((leftPIDController.calculate(leftSource.getAsDouble(), leftSetpoint, dt) +
+                        leftFeedForwardController.calculate(leftSetpoint, dt) / 2),
+                rightPIDController.calculate(rightSource.getAsDouble(), rightSetpoint, dt) +
+                        rightFeedForwardController.calculate(rightSetpoint, dt) / 2);
+    }
+
+    private static int applySettings(FeedForwardController controller, FeedForwardSettings settings,
+                                     int appliedVersion) {
+        int version = settings.getVersion();
+        if(version != appliedVersion) {
+            controller.setGains(settings.getkS(), settings.getkV(), settings.getkA(), settings.getkG());
+        }
+        return version;
     }
 
     @Override
     public void end(boolean interrupted) {
+        if(controlLoop != null) controlLoop.remove(step);
         drivetrain.stop();
     }
 
     @Override
-    public boolean isFinished() {
+    public synchronized boolean isFinished() {
         if (!leftPIDController.atSetpoint()) {
             leftLastTimeNotOnTarget = Timer.getFPGATimestamp();
         }
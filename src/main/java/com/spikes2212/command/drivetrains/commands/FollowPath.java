@@ -2,9 +2,8 @@ package com.spikes2212.command.drivetrains.commands;
 
 import com.spikes2212.command.drivetrains.OdometryDrivetrain;
 import com.spikes2212.control.*;
-import com.spikes2212.path.PurePursuitController;
-import com.spikes2212.path.Waypoint;
-import edu.wpi.first.wpilibj.controller.PIDController;
+import com.spikes2212.path.*;
+import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj2.command.CommandBase;
 
 import java.util.List;
@@ -12,18 +11,33 @@ import java.util.List;
 public class FollowPath extends CommandBase {
 
     private OdometryDrivetrain drivetrain;
-    private List<Waypoint> path;
+    private PathBuffer path;
+    private Trajectory trajectory;
     private double lookaheadDistance;
+    private double lookaheadTime;
     private double maxAcceleration;
-    private PurePursuitController purePursuitController;
+    private PathController pathController;
     private FeedForwardController rightFeedForwardController;
     private FeedForwardController leftFeedForwardController;
     private PIDSettings pidSettings;
     private FeedForwardSettings FeedForwardSettings;
-    private PIDController leftController;
-    private PIDController rightController;
+    private PIDLoop leftController;
+    private PIDLoop rightController;
+    private final double[] speeds = new double[2];
 
-    public FollowPath(OdometryDrivetrain drivetrain, List<Waypoint> path, double lookaheadDistance,
+    /**
+     * The time of the last calculation, used to measure the time between calculations.
+     */
+    private double lastTime;
+
+    /**
+     * The loop the path is followed on, or {@code null} if it is followed in {@link #execute()}.
+     */
+    private ControlLoop controlLoop;
+
+    private final Runnable step = this::calculate;
+
+    public FollowPath(OdometryDrivetrain drivetrain, PathBuffer path, double lookaheadDistance,
                       PIDSettings pidSettings, FeedForwardSettings feedForwardSettings, double maxAcceleration,
                       boolean inverted) {
         addRequirements(drivetrain);
@@ -36,40 +50,93 @@ public class FollowPath extends CommandBase {
         drivetrain.setInverted(inverted);
     }
 
+    public FollowPath(OdometryDrivetrain drivetrain, List<Waypoint> path, double lookaheadDistance,
+                      PIDSettings pidSettings, FeedForwardSettings feedForwardSettings, double maxAcceleration,
+                      boolean inverted) {
+        this(drivetrain, new PathBuffer(path), lookaheadDistance, pidSettings, feedForwardSettings, maxAcceleration,
+                inverted);
+    }
+
+    /**
+     * Creates a command which follows the given trajectory by time, using a {@link TrajectoryController}.
+     *
+     * @param lookaheadTime how far ahead along the trajectory to steer towards, in seconds
+     */
+    public FollowPath(OdometryDrivetrain drivetrain, Trajectory trajectory, double lookaheadTime,
+                      PIDSettings pidSettings, FeedForwardSettings feedForwardSettings, boolean inverted) {
+        addRequirements(drivetrain);
+        this.drivetrain = drivetrain;
+        this.trajectory = trajectory;
+        this.lookaheadTime = lookaheadTime;
+        this.pidSettings = pidSettings;
+        this.FeedForwardSettings = feedForwardSettings;
+        drivetrain.setInverted(inverted);
+    }
+
+    /**
+     * Follows the path on the given {@link ControlLoop} instead of in {@link #execute()}.
+     * Unless the odometry runs on its own thread, it is also calculated on the loop.
+     * Should be called before the command is scheduled.
+     * The loop is started when the command is initialized, if it isn't running already.
+     *
+     * @param controlLoop the loop to run on
+     * @return this command
+     */
+    public FollowPath withControlLoop(ControlLoop controlLoop) {
+        this.controlLoop = controlLoop;
+        return this;
+    }
+
     @Override
     public void initialize() {
+        double period = controlLoop != null ? controlLoop.getPeriod() : 0.02;
         drivetrain.zeroSensors();
-        purePursuitController = new PurePursuitController(drivetrain.getHandler(), path,
-                lookaheadDistance, maxAcceleration, drivetrain.getWidth());
-        purePursuitController.getOdometryHandler().set(0, 0);
-        purePursuitController.reset();
-        leftFeedForwardController = new FeedForwardController(FeedForwardSettings.getkV(), FeedForwardSettings.getkA(), 0.02);
-        rightFeedForwardController = new FeedForwardController(FeedForwardSettings.getkV(), FeedForwardSettings.getkA(), 0.02);
+        if(trajectory != null) {
+            pathController = new TrajectoryController(drivetrain.getHandler(), trajectory, lookaheadTime,
+                    drivetrain.getWidth());
+        } else {
+            pathController = new PurePursuitController(drivetrain.getHandler(), path,
+                    lookaheadDistance, maxAcceleration, drivetrain.getWidth(), period);
+        }
+        pathController.getOdometryHandler().set(0, 0);
+        pathController.reset();
+        leftFeedForwardController = new FeedForwardController(FeedForwardSettings.getkV(), FeedForwardSettings.getkA(), period);
+        rightFeedForwardController = new FeedForwardController(FeedForwardSettings.getkV(), FeedForwardSettings.getkA(), period);
         leftFeedForwardController.reset();
         rightFeedForwardController.reset();
-        leftController = new PIDController(pidSettings.getkP(), pidSettings.getkI(), pidSettings.getkD());
-        rightController = new PIDController(pidSettings.getkP(), pidSettings.getkI(), pidSettings.getkD());
+        leftController = new PIDLoop(pidSettings, period);
+        rightController = new PIDLoop(pidSettings, period);
+        lastTime = Timer.getFPGATimestamp() - period;
+        if(controlLoop != null) controlLoop.add(step);
     }
 
     @Override
     public void execute() {
-        double[] speeds = purePursuitController.getTargetSpeeds();
-        double leftSpeed = leftFeedForwardController.calculate(speeds[0]) + leftController.calculate(
-                drivetrain.getLeftRate(), speeds[0]
+        if(controlLoop == null) calculate();
+    }
+
+    private synchronized void calculate() {
+        if(controlLoop != null && !drivetrain.getHandler().isThreadRunning()) drivetrain.getHandler().calculate();
+        double now = Timer.getFPGATimestamp(), dt = now - lastTime;
+        lastTime = now;
+        pathController.getTargetSpeeds(speeds, dt);
+        double leftSpeed = leftFeedForwardController.calculate(speeds[0], dt) + leftController.calculate(
+                drivetrain.getLeftRate(), speeds[0], dt
         );
-        double rightSpeed = rightFeedForwardController.calculate(speeds[1]) + rightController.calculate(
-                drivetrain.getRightRate(), speeds[1]
+        double rightSpeed = rightFeedForwardController.calculate(speeds[1], dt) + rightController.calculate(
+                drivetrain.getRightRate(), speeds[1], dt
         );
         drivetrain.tankDrive(leftSpeed, rightSpeed, false);
     }
 
     @Override
     public void end(boolean interrupted) {
+        if(controlLoop != null) controlLoop.remove(step);
         drivetrain.stop();
     }
 
     @Override
-    public boolean isFinished() {
-        return purePursuitController.done();
+    public synchronized boolean isFinished() {
+        return pathController.done();
     }
 }
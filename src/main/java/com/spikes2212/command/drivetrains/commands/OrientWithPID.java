@@ -3,26 +3,47 @@ package com.spikes2212.command.drivetrains.commands;
 import com.spikes2212.command.drivetrains.TankDrivetrain;
 import com.spikes2212.control.FeedForwardSettings;
 import com.spikes2212.control.PIDSettings;
+import com.spikes2212.util.Suppliers;
 
+import java.util.function.DoubleSupplier;
 import java.util.function.Supplier;
 
 public class OrientWithPID extends DriveArcadeWithPID {
-    public OrientWithPID(TankDrivetrain drivetrain, Supplier<Double> source, Supplier<Double> setpoint,
+    public OrientWithPID(TankDrivetrain drivetrain, DoubleSupplier source, DoubleSupplier setpoint,
                          PIDSettings pidSettings, FeedForwardSettings feedForwardSettings) {
         super(drivetrain, source, setpoint, () -> 0.0, pidSettings, feedForwardSettings);
     }
 
-    public OrientWithPID(TankDrivetrain drivetrain, Supplier<Double> source, double setpoint, PIDSettings pidSettings,
+    public OrientWithPID(TankDrivetrain drivetrain, DoubleSupplier source, double setpoint, PIDSettings pidSettings,
                          FeedForwardSettings feedForwardSettings) {
         this(drivetrain, source, () -> setpoint, pidSettings, feedForwardSettings);
     }
 
+    public OrientWithPID(TankDrivetrain drivetrain, DoubleSupplier source, DoubleSupplier setpoint,
+                         PIDSettings pidSettings) {
+        this(drivetrain, source, setpoint, pidSettings, FeedForwardSettings.EMPTY_FFSETTINGS);
+    }
+
+    public OrientWithPID(TankDrivetrain drivetrain, DoubleSupplier source, double setpoint, PIDSettings pidSettings) {
+        this(drivetrain, source, setpoint, pidSettings, FeedForwardSettings.EMPTY_FFSETTINGS);
+    }
+
+    public OrientWithPID(TankDrivetrain drivetrain, Supplier<Double> source, Supplier<Double> setpoint,
+                         PIDSettings pidSettings, FeedForwardSettings feedForwardSettings) {
+        this(drivetrain, Suppliers.unbox(source), Suppliers.unbox(setpoint), pidSettings, feedForwardSettings);
+    }
+
+    public OrientWithPID(TankDrivetrain drivetrain, Supplier<Double> source, double setpoint, PIDSettings pidSettings,
+                         FeedForwardSettings feedForwardSettings) {
+        this(drivetrain, Suppliers.unbox(source), setpoint, pidSettings, feedForwardSettings);
+    }
+
     public OrientWithPID(TankDrivetrain drivetrain, Supplier<Double> source, Supplier<Double> setpoint,
                          PIDSettings pidSettings) {
         this(drivetrain, source, setpoint, pidSettings, FeedForwardSettings.EMPTY_FFSETTINGS);
     }
 
     public OrientWithPID(TankDrivetrain drivetrain, Supplier<Double> source, double setpoint, PIDSettings pidSettings) {
-        this(drivetrain, source, setpoint, pidSettings, FeedForwardSettings.EMPTY_FFSETTINGS);
+        this(drivetrain, Suppliers.unbox(source), setpoint, pidSettings);
     }
 }
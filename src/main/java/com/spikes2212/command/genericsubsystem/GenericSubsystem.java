@@ -1,8 +1,10 @@
 package com.spikes2212.command.genericsubsystem;
 
 
+import com.spikes2212.util.Suppliers;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 
+import java.util.function.DoubleSupplier;
 import java.util.function.Supplier;
 
 /**
@@ -14,8 +16,8 @@ import java.util.function.Supplier;
 public abstract class GenericSubsystem extends SubsystemBase {
 
     private double currentSpeed = 0;
-    private Supplier<Double> maxSpeed;
-    private Supplier<Double> minSpeed;
+    private DoubleSupplier maxSpeed;
+    private DoubleSupplier minSpeed;
 
     /**
      * Constructs a new instance of GenericSubsystem.
@@ -41,6 +43,16 @@ public abstract class GenericSubsystem extends SubsystemBase {
      * @param maxSpeed the maximum speed
      */
     public GenericSubsystem(Supplier<Double> minSpeed, Supplier<Double> maxSpeed) {
+        this(Suppliers.unbox(minSpeed), Suppliers.unbox(maxSpeed));
+    }
+
+    /**
+     * Constructs a new instance of GenericSubsystem with the given minSpeed supplier and maxSpeed supplier.
+     *
+     * @param minSpeed the minimum speed
+     * @param maxSpeed the maximum speed
+     */
+    public GenericSubsystem(DoubleSupplier minSpeed, DoubleSupplier maxSpeed) {
         this.maxSpeed = maxSpeed;
         this.minSpeed = minSpeed;
     }
@@ -52,8 +64,9 @@ public abstract class GenericSubsystem extends SubsystemBase {
      * @param speed the speed to move the subsystem with.
      */
     public final void move(double speed) {
-        if (speed < minSpeed.get()) speed = minSpeed.get();
-        if (speed > maxSpeed.get()) speed = maxSpeed.get();
+        double minSpeed = this.minSpeed.getAsDouble(), maxSpeed = this.maxSpeed.getAsDouble();
+        if (speed < minSpeed) speed = minSpeed;
+        if (speed > maxSpeed) speed = maxSpeed;
         if (canMove(speed)) {
             apply(speed);
             currentSpeed = speed;
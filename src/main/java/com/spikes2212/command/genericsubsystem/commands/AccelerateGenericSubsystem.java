@@ -1,8 +1,10 @@
 package com.spikes2212.command.genericsubsystem.commands;
 
+import java.util.function.DoubleSupplier;
 import java.util.function.Supplier;
 
 import com.spikes2212.command.genericsubsystem.GenericSubsystem;
+import com.spikes2212.util.Suppliers;
 
 import edu.wpi.first.wpilibj.Timer;
 
@@ -30,6 +32,20 @@ public class AccelerateGenericSubsystem extends MoveGenericSubsystem {
      * @param time        the time it takes for the subsystem to get to the speed.
      */
     public AccelerateGenericSubsystem(GenericSubsystem subsystem, Supplier<Double> wantedSpeed, double time) {
+        this(subsystem, Suppliers.unbox(wantedSpeed), time);
+    }
+
+    /**
+     * This constructs a new {@link AccelerateGenericSubsystem} command using the
+     * {@link GenericSubsystem} this command operates on and a supplier supplying the
+     * wanted speed the {@link GenericSubsystem} should move with after the given
+     * time.
+     *
+     * @param subsystem   the {@link GenericSubsystem} this command should move.
+     * @param wantedSpeed the speed the subsystem should move after the time.
+     * @param time        the time it takes for the subsystem to get to the speed.
+     */
+    public AccelerateGenericSubsystem(GenericSubsystem subsystem, DoubleSupplier wantedSpeed, double time) {
         super(subsystem, wantedSpeed);
         if (time <= 1) {
             time = 1;
@@ -58,7 +74,7 @@ public class AccelerateGenericSubsystem extends MoveGenericSubsystem {
     public void initialize() {
         startTime = Timer.getFPGATimestamp();
         currentSpeed = 0;
-        acceleration = speedSupplier.get() / time;
+        acceleration = speedSupplier.getAsDouble() / time;
     }
 
     /**
@@ -66,9 +82,10 @@ public class AccelerateGenericSubsystem extends MoveGenericSubsystem {
      */
     @Override
     public void execute() {
+        double wantedSpeed = speedSupplier.getAsDouble();
         currentSpeed = (Timer.getFPGATimestamp() - startTime) * acceleration;
-        if (Math.abs(currentSpeed) > Math.abs(speedSupplier.get()))
-            currentSpeed = speedSupplier.get();
+        if (Math.abs(currentSpeed) > Math.abs(wantedSpeed))
+            currentSpeed = wantedSpeed;
 
         subsystem.move(currentSpeed);
     }
@@ -80,7 +97,7 @@ public class AccelerateGenericSubsystem extends MoveGenericSubsystem {
 
     @Override
     public boolean isFinished() {
-        return super.isFinished() || currentSpeed == speedSupplier.get();
+        return super.isFinished() || currentSpeed == speedSupplier.getAsDouble();
     }
 
 }
\ No newline at end of file
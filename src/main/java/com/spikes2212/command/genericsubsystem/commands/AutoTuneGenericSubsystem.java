@@ -0,0 +1,118 @@
+package com.spikes2212.command.genericsubsystem.commands;
+
+import com.spikes2212.command.genericsubsystem.GenericSubsystem;
+import com.spikes2212.control.PIDSettings;
+import com.spikes2212.control.RelayAutoTuner;
+import com.spikes2212.dashboard.Namespace;
+import com.spikes2212.util.Suppliers;
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj2.command.CommandBase;
+
+import java.util.function.DoubleSupplier;
+import java.util.function.Supplier;
+
+/**
+ * This command finds PID gains for a {@link GenericSubsystem} by running a relay experiment with a
+ * {@link RelayAutoTuner}, for use with {@link MoveGenericSubsystemWithPID}.
+ * <p>
+ * The ultimate gain and period, and the proposed gains, are published through a {@link Namespace} while
+ * the experiment runs. The command ends when the experiment is done, so if the subsystem doesn't oscillate
+ * it should be run with a timeout.
+ *
+ * @see RelayAutoTuner
+ */
+public class AutoTuneGenericSubsystem extends CommandBase {
+
+    protected final GenericSubsystem subsystem;
+    protected final DoubleSupplier source;
+    protected final RelayAutoTuner tuner;
+
+    private double lastTime;
+
+    /**
+     * This constructs a new {@link AutoTuneGenericSubsystem} command.
+     *
+     * @param subsystem the {@link GenericSubsystem} this command should move.
+     * @param source    a {@link DoubleSupplier} supplying the subsystem's position.
+     * @param tuner     the tuner which runs the experiment.
+     * @param namespace the namespace to publish the results in, or {@code null} to not publish them.
+     */
+    public AutoTuneGenericSubsystem(GenericSubsystem subsystem, DoubleSupplier source, RelayAutoTuner tuner,
+                                    Namespace namespace) {
+        addRequirements(subsystem);
+        this.subsystem = subsystem;
+        this.source = source;
+        this.tuner = tuner;
+        if(namespace != null) {
+            namespace.putNumber("ultimate gain", tuner::getUltimateGain);
+            namespace.putNumber("ultimate period", tuner::getUltimatePeriod);
+            namespace.putNumber("cycles", tuner::getCycles);
+            namespace.putNumber("kP", tuner::getkP);
+            namespace.putNumber("kI", tuner::getkI);
+            namespace.putNumber("kD", tuner::getkD);
+            namespace.putBoolean("done", tuner::isDone);
+        }
+    }
+
+    public AutoTuneGenericSubsystem(GenericSubsystem subsystem, Supplier<Double> source, RelayAutoTuner tuner,
+                                    Namespace namespace) {
+        this(subsystem, Suppliers.unbox(source), tuner, namespace);
+    }
+
+    /**
+     * This constructs a new {@link AutoTuneGenericSubsystem} command.
+     *
+     * @param subsystem  the {@link GenericSubsystem} this command should move.
+     * @param source     a {@link DoubleSupplier} supplying the subsystem's position.
+     * @param setpoint   the position the subsystem oscillates around.
+     * @param amplitude  the output the subsystem is moved with, which should make it move noticeably.
+     * @param hysteresis how far past the setpoint the subsystem must get for the output to flip.
+     * @param rule       the rule for calculating the gains.
+     * @param namespace  the namespace to publish the results in, or {@code null} to not publish them.
+     */
+    public AutoTuneGenericSubsystem(GenericSubsystem subsystem, DoubleSupplier source, double setpoint,
+                                    double amplitude, double hysteresis, RelayAutoTuner.TuningRule rule,
+                                    Namespace namespace) {
+        this(subsystem, source, new RelayAutoTuner(setpoint, amplitude, hysteresis, rule), namespace);
+    }
+
+    public RelayAutoTuner getTuner() {
+        return tuner;
+    }
+
+    /**
+     * returns the proposed gains as constant settings
+     * @param tolerance the acceptable distance from the target
+     * @param waitTime  the time required to stay on target
+     * @return the settings
+     */
+    public PIDSettings getSettings(double tolerance, double waitTime) {
+        return tuner.getSettings(tolerance, waitTime);
+    }
+
+    @Override
+    public void initialize() {
+        tuner.reset();
+        lastTime = Timer.getFPGATimestamp();
+    }
+
+    /**
+     * moves the subsystem with the relay's output
+     */
+    @Override
+    public void execute() {
+        double now = Timer.getFPGATimestamp();
+        subsystem.move(tuner.calculate(source.getAsDouble(), now - lastTime));
+        lastTime = now;
+    }
+
+    @Override
+    public void end(boolean interrupted) {
+        subsystem.stop();
+    }
+
+    @Override
+    public boolean isFinished() {
+        return tuner.isDone();
+    }
+}
@@ -0,0 +1,109 @@
+package com.spikes2212.command.genericsubsystem.commands;
+
+import com.spikes2212.command.genericsubsystem.GenericSubsystem;
+import com.spikes2212.control.FeedForwardEstimator;
+import com.spikes2212.util.Suppliers;
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj2.command.CommandBase;
+
+import java.util.function.DoubleSupplier;
+import java.util.function.Supplier;
+
+/**
+ * This command moves a {@link GenericSubsystem} through a {@link FeedForwardEstimator.Test}, and updates a
+ * {@link FeedForwardEstimator} with the subsystem's output, velocity and acceleration every cycle.
+ * The estimate can be read from the estimator while the command runs.
+ * <p>
+ * The acceleration is the change in velocity between cycles, so the velocity should not be too noisy.
+ * The command ends when the subsystem can't move anymore, so it is usually run with a timeout.
+ *
+ * @see FeedForwardEstimator
+ */
+public class CharacterizeGenericSubsystem extends CommandBase {
+
+    protected final GenericSubsystem subsystem;
+    protected final DoubleSupplier velocity;
+    protected final FeedForwardEstimator estimator;
+    private final FeedForwardEstimator.Test test;
+
+    /**
+     * The output's growth per second for a quasistatic test, or the output for a dynamic test.
+     */
+    private final double rate;
+
+    /**
+     * Samples whose velocity is not above this are ignored, since the subsystem hasn't started moving.
+     */
+    private final double minVelocity;
+
+    private double startTime, lastTime, lastVelocity;
+    private boolean started;
+
+    /**
+     * This constructs a new {@link CharacterizeGenericSubsystem} command.
+     *
+     * @param subsystem   the {@link GenericSubsystem} this command should move.
+     * @param velocity    a {@link DoubleSupplier} supplying the subsystem's velocity.
+     * @param estimator   the estimator to update.
+     * @param test        the test to move the subsystem through.
+     * @param rate        the output's growth per second for a quasistatic test, or the output for a dynamic test.
+     *                    Negative values test the subsystem in the opposite direction.
+     * @param minVelocity the velocity below which the subsystem is considered to not be moving.
+     */
+    public CharacterizeGenericSubsystem(GenericSubsystem subsystem, DoubleSupplier velocity,
+                                        FeedForwardEstimator estimator, FeedForwardEstimator.Test test, double rate,
+                                        double minVelocity) {
+        addRequirements(subsystem);
+        this.subsystem = subsystem;
+        this.velocity = velocity;
+        this.estimator = estimator;
+        this.test = test;
+        this.rate = rate;
+        this.minVelocity = minVelocity;
+    }
+
+    public CharacterizeGenericSubsystem(GenericSubsystem subsystem, Supplier<Double> velocity,
+                                        FeedForwardEstimator estimator, FeedForwardEstimator.Test test, double rate,
+                                        double minVelocity) {
+        this(subsystem, Suppliers.unbox(velocity), estimator, test, rate, minVelocity);
+    }
+
+    public FeedForwardEstimator getEstimator() {
+        return estimator;
+    }
+
+    @Override
+    public void initialize() {
+        startTime = Timer.getFPGATimestamp();
+        started = false;
+    }
+
+    /**
+     * adds the last cycle to the estimator and moves the subsystem with the test's output
+     */
+    @Override
+    public void execute() {
+        double now = Timer.getFPGATimestamp(), velocity = this.velocity.getAsDouble();
+        if(started && now > lastTime && Math.abs(velocity) > minVelocity) {
+            estimator.add(subsystem.getSpeed(), velocity, (velocity - lastVelocity) / (now - lastTime));
+        }
+        lastTime = now;
+        lastVelocity = velocity;
+        started = true;
+        subsystem.move(getOutput());
+    }
+
+    @Override
+    public void end(boolean interrupted) {
+        subsystem.stop();
+    }
+
+    @Override
+    public boolean isFinished() {
+        return !subsystem.canMove(getOutput());
+    }
+
+    private double getOutput() {
+        return test.getOutput(Timer.getFPGATimestamp() - startTime, rate);
+    }
+}
@@ -2,8 +2,10 @@ package com.spikes2212.command.genericsubsystem.commands;
 
 
 import com.spikes2212.command.genericsubsystem.GenericSubsystem;
+import com.spikes2212.util.Suppliers;
 import edu.wpi.first.wpilibj2.command.CommandBase;
 
+import java.util.function.DoubleSupplier;
 import java.util.function.Supplier;
 
 
@@ -17,7 +19,7 @@ import java.util.function.Supplier;
 public class MoveGenericSubsystem extends CommandBase {
 
     protected final GenericSubsystem subsystem;
-    protected final Supplier<Double> speedSupplier;
+    protected final DoubleSupplier speedSupplier;
 
     /**
      * This constructs a new {@link MoveGenericSubsystem} command using the
@@ -29,6 +31,19 @@ public class MoveGenericSubsystem extends CommandBase {
      *                      should be moved with. Must only supply values between -1 and 1.
      */
     public MoveGenericSubsystem(GenericSubsystem subsystem, Supplier<Double> speedSupplier) {
+        this(subsystem, Suppliers.unbox(speedSupplier));
+    }
+
+    /**
+     * This constructs a new {@link MoveGenericSubsystem} command using the
+     * {@link GenericSubsystem} this command operates on and a supplier supplying the
+     * speed the {@link GenericSubsystem} should move with.
+     *
+     * @param subsystem     the {@link GenericSubsystem} this command should move.
+     * @param speedSupplier a {@link DoubleSupplier} supplying the speed this subsystem
+     *                      should be moved with. Must only supply values between -1 and 1.
+     */
+    public MoveGenericSubsystem(GenericSubsystem subsystem, DoubleSupplier speedSupplier) {
         addRequirements(subsystem);
         this.subsystem = subsystem;
         this.speedSupplier = speedSupplier;
@@ -43,7 +58,7 @@ public class MoveGenericSubsystem extends CommandBase {
      */
     @Override
     public void execute() {
-        subsystem.move(speedSupplier.get());
+        subsystem.move(speedSupplier.getAsDouble());
     }
 
     @Override
@@ -53,7 +68,7 @@ public class MoveGenericSubsystem extends CommandBase {
 
     @Override
     public boolean isFinished() {
-        return !subsystem.canMove(speedSupplier.get());
+        return !subsystem.canMove(speedSupplier.getAsDouble());
     }
 
 }
\ No newline at end of file
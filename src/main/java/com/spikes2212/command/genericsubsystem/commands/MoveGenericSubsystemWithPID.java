@@ -2,10 +2,11 @@ package com.spikes2212.command.genericsubsystem.commands;
 
 import com.spikes2212.command.genericsubsystem.GenericSubsystem;
 import com.spikes2212.control.*;
+import com.spikes2212.util.Suppliers;
 import edu.wpi.first.wpilibj.Timer;
-import edu.wpi.first.wpilibj.controller.PIDController;
 import edu.wpi.first.wpilibj2.command.CommandBase;
 
+import java.util.function.DoubleSupplier;
 import java.util.function.Supplier;
 
 /**
@@ -24,7 +25,7 @@ public class MoveGenericSubsystemWithPID extends CommandBase {
     /**
      * A supplier that returns the subsystem's current location.
      */
-    private Supplier<Double> source;
+    private DoubleSupplier source;
 
     /**
      * The PID Settings for the PID control loop.
@@ -39,12 +40,12 @@ public class MoveGenericSubsystemWithPID extends CommandBase {
     /**
      * the setpoint for the subsystem.
      */
-    private Supplier<Double> setpoint;
+    private DoubleSupplier setpoint;
 
     /**
      * An object that makes the necessary calculations for the PID control loop.
      */
-    private PIDController pidController;
+    private PIDLoop pidController;
 
     /**
      * An object that makes the necessary calculations for the feed forward control loop.
@@ -56,7 +57,24 @@ public class MoveGenericSubsystemWithPID extends CommandBase {
      */
     private double lastTimeNotOnTarget;
 
-    public MoveGenericSubsystemWithPID(GenericSubsystem subsystem, Supplier<Double> setpoint, Supplier<Double> source,
+    /**
+     * The time of the last calculation, used to measure the time between calculations.
+     */
+    private double lastTime;
+
+    /**
+     * The version of the feed forward settings which was last applied to the controller.
+     */
+    private int feedForwardVersion = -1;
+
+    /**
+     * The loop the controllers are calculated on, or {@code null} if they are calculated in {@link #execute()}.
+     */
+    private ControlLoop controlLoop;
+
+    private final Runnable step = this::calculate;
+
+    public MoveGenericSubsystemWithPID(GenericSubsystem subsystem, DoubleSupplier setpoint, DoubleSupplier source,
                                        PIDSettings pidSettings, FeedForwardSettings feedForwardSettings) {
         addRequirements(subsystem);
         this.subsystem = subsystem;
@@ -65,7 +83,12 @@ public class MoveGenericSubsystemWithPID extends CommandBase {
         this.setpoint = setpoint;
         this.source = source;
         this.feedForwardController = new FeedForwardController(feedForwardSettings.getkS(), feedForwardSettings.getkV(), feedForwardSettings.getkA(), feedForwardSettings.getkG(), 0.02);
-        this.pidController = new PIDController(pidSettings.getkP(), pidSettings.getkI(), pidSettings.getkD());
+        this.pidController = new PIDLoop(pidSettings);
+    }
+
+    public MoveGenericSubsystemWithPID(GenericSubsystem subsystem, Supplier<Double> setpoint, Supplier<Double> source,
+                                       PIDSettings pidSettings, FeedForwardSettings feedForwardSettings) {
+        this(subsystem, Suppliers.unbox(setpoint), Suppliers.unbox(source), pidSettings, feedForwardSettings);
     }
 
     public MoveGenericSubsystemWithPID(GenericSubsystem subsystem, double setpoint, double source,
@@ -78,30 +101,67 @@ public class MoveGenericSubsystemWithPID extends CommandBase {
         this(subsystem, setpoint, source, pidSettings, FeedForwardSettings.EMPTY_FFSETTINGS);
     }
 
+    public MoveGenericSubsystemWithPID(GenericSubsystem subsystem, DoubleSupplier setpoint, DoubleSupplier source,
+                                       PIDSettings pidSettings) {
+        this(subsystem, setpoint, source, pidSettings, FeedForwardSettings.EMPTY_FFSETTINGS);
+    }
+
     public MoveGenericSubsystemWithPID(GenericSubsystem subsystem, double setpoint, double source,
                                        PIDSettings pidSettings) {
         this(subsystem, () -> setpoint, () -> source, pidSettings, FeedForwardSettings.EMPTY_FFSETTINGS);
     }
 
+    /**
+     * Calculates the controllers and moves the subsystem on the given {@link ControlLoop} instead of
+     * in {@link #execute()}. Should be called before the command is scheduled.
+     * The loop is started when the command is initialized, if it isn't running already.
+     *
+     * @param controlLoop the loop to run on
+     * @return this command
+     */
+    public MoveGenericSubsystemWithPID withControlLoop(ControlLoop controlLoop) {
+        this.controlLoop = controlLoop;
+        pidController = new PIDLoop(pidSettings, controlLoop.getPeriod());
+        feedForwardController.setPeriod(controlLoop.getPeriod());
+        return this;
+    }
+
+    @Override
+    public void initialize() {
+        pidController.reset();
+        lastTime = Timer.getFPGATimestamp() - feedForwardController.getPeriod();
+        if(controlLoop != null) controlLoop.add(step);
+    }
+
     @Override
     public void execute() {
-        pidController.setTolerance(pidSettings.getTolerance());
-        pidController.setPID(pidSettings.getkP(), pidSettings.getkI(), pidSettings.getkD());
-        feedForwardController.setGains(feedForwardSettings.getkS(), feedForwardController.getkV(),
-                feedForwardController.getkA(), feedForwardController.getkG());
+        if(controlLoop == null) calculate();
+    }
+
+    private synchronized void calculate() {
+        int version = feedForwardSettings.getVersion();
+        if(version != feedForwardVersion) {
+            feedForwardController.setGains(feedForwardSettings.getkS(), feedForwardSettings.getkV(),
+                    feedForwardSettings.getkA(), feedForwardSettings.getkG());
+            feedForwardVersion = version;
+        }
 
-        double pidValue = pidController.calculate(source.get(), setpoint.get());
-        double svagValue = feedForwardController.calculate(setpoint.get());
+        double now = Timer.getFPGATimestamp(), dt = now - lastTime;
+        lastTime = now;
+        double setpoint = this.setpoint.getAsDouble();
+        double pidValue = pidController.calculate(source.getAsDouble(), setpoint, dt);
+        double svagValue = feedForwardController.calculate(setpoint, dt);
         subsystem.move(pidValue + svagValue);
     }
 
     @Override
     public void end(boolean interrupted) {
+        if(controlLoop != null) controlLoop.remove(step);
         subsystem.stop();
     }
 
     @Override
-    public boolean isFinished() {
+    public synchronized boolean isFinished() {
         if(!pidController.atSetpoint()) {
             lastTimeNotOnTarget = Timer.getFPGATimestamp();
         }
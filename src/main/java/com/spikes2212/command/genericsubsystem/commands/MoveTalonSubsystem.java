@@ -1,9 +1,11 @@
 package com.spikes2212.command.genericsubsystem.commands;
 
 import com.spikes2212.command.genericsubsystem.TalonSubsystem;
+import com.spikes2212.util.Suppliers;
 import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj2.command.CommandBase;
 
+import java.util.function.DoubleSupplier;
 import java.util.function.Supplier;
 
 /**
@@ -18,13 +20,17 @@ public class MoveTalonSubsystem extends CommandBase {
     /**
      * The setpoint this command should bring the {@link TalonSubsystem} to.
      */
-    private final Supplier<Double> setpoint;
+    private final DoubleSupplier setpoint;
 
-    private final Supplier<Double> waitTime;
+    private final DoubleSupplier waitTime;
     private double lastTimeNotOnTarget;
 
 
     public MoveTalonSubsystem(TalonSubsystem subsystem, Supplier<Double> setpoint, Supplier<Double> waitTime) {
+        this(subsystem, Suppliers.unbox(setpoint), Suppliers.unbox(waitTime));
+    }
+
+    public MoveTalonSubsystem(TalonSubsystem subsystem, DoubleSupplier setpoint, DoubleSupplier waitTime) {
         addRequirements(subsystem);
         this.subsystem = subsystem;
         this.setpoint = setpoint;
@@ -33,6 +39,10 @@ public class MoveTalonSubsystem extends CommandBase {
     }
 
     public MoveTalonSubsystem(TalonSubsystem subsystem, double setpoint, Supplier<Double> waitTime) {
+        this(subsystem, () -> setpoint, Suppliers.unbox(waitTime));
+    }
+
+    public MoveTalonSubsystem(TalonSubsystem subsystem, double setpoint, DoubleSupplier waitTime) {
         this(subsystem, () -> setpoint, waitTime);
     }
 
@@ -43,7 +53,7 @@ public class MoveTalonSubsystem extends CommandBase {
 
     @Override
     public void execute() {
-        subsystem.pidSet(setpoint.get());
+        subsystem.pidSet(setpoint.getAsDouble());
     }
 
     @Override
@@ -53,10 +63,10 @@ public class MoveTalonSubsystem extends CommandBase {
 
     @Override
     public boolean isFinished() {
-        if(!subsystem.onTarget(setpoint.get())) {
+        if(!subsystem.onTarget(setpoint.getAsDouble())) {
             lastTimeNotOnTarget = Timer.getFPGATimestamp();
         }
 
-        return Timer.getFPGATimestamp() - lastTimeNotOnTarget > waitTime.get();
+        return Timer.getFPGATimestamp() - lastTimeNotOnTarget > waitTime.getAsDouble();
     }
 }
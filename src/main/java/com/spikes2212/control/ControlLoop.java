@@ -0,0 +1,216 @@
+package com.spikes2212.control;
+
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Notifier;
+
+import java.util.Arrays;
+
+/**
+ * Runs the control calculations of commands on its own thread, at a fixed rate which may be faster than the
+ * command scheduler's.
+ * <p>
+ * A command adds its step to the loop when it is initialized and removes it when it ends, so the command scheduler
+ * still decides when the command runs. Every iteration runs each step once, in the order they were added.
+ * The loop starts when the first step is added, so a command given a loop which was never started still runs,
+ * and stops when the last step is removed; {@link #start()} only has to be called to start the loop ahead of time.
+ * Once {@link #remove(Runnable)} returns, the step is not running and will not run again, so the command
+ * can safely stop its motors.
+ * <p>
+ * The loop keeps statistics of its timing: the time between the starts of consecutive iterations, its deviation
+ * from the period (the jitter), and the time the steps took to run.
+ */
+public class ControlLoop {
+
+    /**
+     * The default period of the loop, in seconds.
+     */
+    public static final double DEFAULT_PERIOD = 0.005;
+
+    private final double period;
+    private final Notifier notifier;
+    private Runnable[] steps = new Runnable[0];
+    private boolean running = false;
+
+    /**
+     * The start time of the last iteration, in nanoseconds, or -1 before the first iteration.
+     */
+    private long lastStart = -1;
+
+    /**
+     * The amount of iterations, of measured periods, and of iterations which took longer than the period.
+     */
+    private long iterations = 0, periods = 0, overruns = 0;
+
+    /**
+     * The timing statistics, in seconds. {@code periodM2} is the sum of the squared deviations of the
+     * measured periods from their mean.
+     */
+    private double meanPeriod = 0, periodM2 = 0, maxJitter = 0, meanRunTime = 0, maxRunTime = 0;
+
+    /**
+     * creates a new {@link ControlLoop}
+     * @param period the time between iterations, in seconds
+     */
+    public ControlLoop(double period) {
+        if(period <= 0) throw new IllegalArgumentException("period must be positive");
+        this.period = period;
+        notifier = new Notifier(this::run);
+        notifier.setName("ControlLoop");
+    }
+
+    /**
+     * creates a new {@link ControlLoop} which runs every {@link #DEFAULT_PERIOD} seconds
+     */
+    public ControlLoop() {
+        this(DEFAULT_PERIOD);
+    }
+
+    public double getPeriod() {
+        return period;
+    }
+
+    public synchronized void start() {
+        if(running) return;
+        lastStart = -1;
+        notifier.startPeriodic(period);
+        running = true;
+    }
+
+    public synchronized void stop() {
+        notifier.stop();
+        running = false;
+    }
+
+    public synchronized boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Adds a step which will run on every iteration of the loop, starting the loop if it isn't running.
+     *
+     * @param step the step
+     */
+    public synchronized void add(Runnable step) {
+        steps = Arrays.copyOf(steps, steps.length + 1);
+        steps[steps.length - 1] = step;
+        start();
+    }
+
+    /**
+     * Removes a step from the loop, waiting for it to finish if it is running, and stops the loop if it has
+     * no steps left.
+     *
+     * @param step the step, as given to {@link #add(Runnable)}
+     */
+    public synchronized void remove(Runnable step) {
+        for(int i = 0; i < steps.length; i++) {
+            if(steps[i] == step) {
+                Runnable[] removed = new Runnable[steps.length - 1];
+                System.arraycopy(steps, 0, removed, 0, i);
+                System.arraycopy(steps, i + 1, removed, i, removed.length - i);
+                steps = removed;
+                if(steps.length == 0) stop();
+                return;
+            }
+        }
+    }
+
+    private synchronized void run() {
+        long start = System.nanoTime();
+        Runnable[] steps = this.steps;
+        for(Runnable step : steps) {
+            try {
+                step.run();
+            } catch(RuntimeException e) {
+                remove(step);
+                DriverStation.reportError("ControlLoop step threw " + e + ", removing it", e.getStackTrace());
+            }
+        }
+        record(start, System.nanoTime());
+    }
+
+    private void record(long start, long end) {
+        double runTime = (end - start) * 1e-9;
+        meanRunTime += (runTime - meanRunTime) / (iterations + 1);
+        maxRunTime = Math.max(maxRunTime, runTime);
+        if(runTime > period) overruns++;
+        if(lastStart >= 0) {
+            double measured = (start - lastStart) * 1e-9;
+            double delta = measured - meanPeriod;
+            periods++;
+            meanPeriod += delta / periods;
+            periodM2 += delta * (measured - meanPeriod);
+            maxJitter = Math.max(maxJitter, Math.abs(measured - period));
+        }
+        lastStart = start;
+        iterations++;
+    }
+
+    /**
+     * returns the amount of iterations since the statistics were last reset
+     * @return the amount of iterations
+     */
+    public synchronized long getIterations() {
+        return iterations;
+    }
+
+    /**
+     * returns the amount of iterations whose steps took longer than the period to run
+     * @return the amount of overrunning iterations
+     */
+    public synchronized long getOverruns() {
+        return overruns;
+    }
+
+    /**
+     * returns the mean measured time between the starts of consecutive iterations
+     * @return the mean period, in seconds
+     */
+    public synchronized double getMeanPeriod() {
+        return meanPeriod;
+    }
+
+    /**
+     * returns the standard deviation of the measured time between the starts of consecutive iterations
+     * @return the standard deviation of the period, in seconds
+     */
+    public synchronized double getPeriodStdDev() {
+        return periods > 1 ? Math.sqrt(periodM2 / (periods - 1)) : 0;
+    }
+
+    /**
+     * returns the largest difference between a measured period and the configured one
+     * @return the maximum jitter, in seconds
+     */
+    public synchronized double getMaxJitter() {
+        return maxJitter;
+    }
+
+    /**
+     * returns the mean time the steps took to run in one iteration
+     * @return the mean run time, in seconds
+     */
+    public synchronized double getMeanRunTime() {
+        return meanRunTime;
+    }
+
+    /**
+     * returns the longest time the steps took to run in one iteration
+     * @return the maximum run time, in seconds
+     */
+    public synchronized double getMaxRunTime() {
+        return maxRunTime;
+    }
+
+    public synchronized void resetStatistics() {
+        lastStart = -1;
+        iterations = 0;
+        periods = 0;
+        overruns = 0;
+        meanPeriod = 0;
+        periodM2 = 0;
+        maxJitter = 0;
+        meanRunTime = 0;
+        maxRunTime = 0;
+    }
+}
@@ -106,6 +106,10 @@ public class FeedForwardController {
         return period;
     }
 
+    public void setPeriod(double period) {
+        this.period = period;
+    }
+
     public void reset() {
         this.previousTarget = 0;
     }
@@ -118,7 +122,19 @@ public class FeedForwardController {
      * @return the desired output
      */
     public double calculate(double setpoint) {
-        double targetDerivative = (setpoint - previousTarget) / period;
+        return calculate(setpoint, period);
+    }
+
+    /**
+     * Calculates the desired output using a simple feed forward method, with the time which actually
+     * passed since the last call. If no time passed, the acceleration is taken as zero.
+     *
+     * @param setpoint the target velocity
+     * @param dt       the time since the last call, in seconds
+     * @return the desired output
+     */
+    public double calculate(double setpoint, double dt) {
+        double targetDerivative = dt > 0 ? (setpoint - previousTarget) / dt : 0;
         previousTarget = setpoint;
         return kG + kS * Math.signum(setpoint) + kV * setpoint + kA * targetDerivative;
     }
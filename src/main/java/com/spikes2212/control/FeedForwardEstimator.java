@@ -0,0 +1,230 @@
+package com.spikes2212.control;
+
+/**
+ * Estimates the constants of a {@link FeedForwardController} from samples of a mechanism's output, velocity and
+ * acceleration, using recursive least squares.
+ * <p>
+ * Every sample updates the estimate immediately, in constant time and without allocating, so the estimate can be
+ * watched while the mechanism is being tested and no run has to be recorded. The model is the one of
+ * {@link FeedForwardController}: {@code output = kG + kS * sign(velocity) + kV * velocity + kA * acceleration}.
+ * kS and kG can only be told apart if the mechanism is tested in both directions; when there is no gravity
+ * to account for, the estimator can be created without kG.
+ * <p>
+ * The latest samples are also kept in preallocated arrays, so they can be inspected or sent to a dashboard.
+ */
+public class FeedForwardEstimator {
+
+    /**
+     * The kinds of tests a mechanism can be characterized with.
+     */
+    public enum Test {
+        /**
+         * The output grows slowly, so the acceleration is negligible and kS, kV and kG are found.
+         */
+        QUASISTATIC,
+
+        /**
+         * The output is constant from the start, so the mechanism accelerates and kA is found.
+         */
+        DYNAMIC;
+
+        /**
+         * returns the output the mechanism should be given during this test
+         * @param elapsed the time since the test started, in seconds
+         * @param rate    the output's growth per second for a quasistatic test, or the output for a dynamic test
+         * @return the output
+         */
+        public double getOutput(double elapsed, double rate) {
+            return this == QUASISTATIC ? rate * elapsed : rate;
+        }
+    }
+
+    /**
+     * The default amount of kept samples.
+     */
+    public static final int DEFAULT_LOG_CAPACITY = 500;
+
+    /**
+     * The initial variance of every constant, large enough for the first samples to determine the estimate.
+     */
+    private static final double INITIAL_VARIANCE = 1e4;
+
+    /**
+     * The amount of estimated constants, which are kS, kV, kA and possibly kG in this order.
+     */
+    private final int count;
+
+    /**
+     * The weight of older samples relative to newer ones, at most 1. Lower values follow changes faster.
+     */
+    private final double forgettingFactor;
+
+    /**
+     * The estimated constants, the covariance of the estimate as a row-major matrix,
+     * and the current sample's regressors and their product with the covariance.
+     */
+    private final double[] constants, covariance, regressors, gain;
+
+    /**
+     * The latest samples, in a ring buffer.
+     */
+    private final double[] loggedOutput, loggedVelocity, loggedAcceleration;
+    private int logHead = 0, logSize = 0;
+
+    private long samples = 0;
+
+    /**
+     * creates a new {@link FeedForwardEstimator}
+     * @param estimateGravity  whether to estimate kG, which otherwise stays 0
+     * @param forgettingFactor the weight of older samples relative to newer ones, in (0, 1]. 1 weighs all
+     *                         samples equally
+     * @param logCapacity      the amount of latest samples kept
+     */
+    public FeedForwardEstimator(boolean estimateGravity, double forgettingFactor, int logCapacity) {
+        if(forgettingFactor <= 0 || forgettingFactor > 1)
+            throw new IllegalArgumentException("forgettingFactor must be in (0, 1]");
+        if(logCapacity < 1) throw new IllegalArgumentException("logCapacity must be positive");
+        this.count = estimateGravity ? 4 : 3;
+        this.forgettingFactor = forgettingFactor;
+        constants = new double[count];
+        covariance = new double[count * count];
+        regressors = new double[count];
+        gain = new double[count];
+        loggedOutput = new double[logCapacity];
+        loggedVelocity = new double[logCapacity];
+        loggedAcceleration = new double[logCapacity];
+        reset();
+    }
+
+    public FeedForwardEstimator(boolean estimateGravity) {
+        this(estimateGravity, 1, DEFAULT_LOG_CAPACITY);
+    }
+
+    /**
+     * Forgets every sample.
+     */
+    public void reset() {
+        for(int i = 0; i < count; i++) {
+            constants[i] = 0;
+            for(int j = 0; j < count; j++) {
+                covariance[i * count + j] = i == j ? INITIAL_VARIANCE : 0;
+            }
+        }
+        samples = 0;
+        logHead = 0;
+        logSize = 0;
+    }
+
+    /**
+     * Updates the estimate with a sample.
+     *
+     * @param output       the output given to the mechanism
+     * @param velocity     the mechanism's velocity
+     * @param acceleration the mechanism's acceleration
+     */
+    public void add(double output, double velocity, double acceleration) {
+        log(output, velocity, acceleration);
+        regressors[0] = Math.signum(velocity);
+        regressors[1] = velocity;
+        regressors[2] = acceleration;
+        if(count == 4) regressors[3] = 1;
+        double denominator = forgettingFactor, prediction = 0;
+        for(int i = 0; i < count; i++) {
+            double sum = 0;
+            for(int j = 0; j < count; j++) {
+                sum += covariance[i * count + j] * regressors[j];
+            }
+            gain[i] = sum;
+            denominator += regressors[i] * sum;
+            prediction += constants[i] * regressors[i];
+        }
+        double error = output - prediction;
+        for(int i = 0; i < count; i++) {
+            constants[i] += gain[i] / denominator * error;
+        }
+        for(int i = 0; i < count; i++) {
+            for(int j = 0; j < count; j++) {
+                covariance[i * count + j] = (covariance[i * count + j] - gain[i] * gain[j] / denominator) /
+                        forgettingFactor;
+            }
+        }
+        samples++;
+    }
+
+    private void log(double output, double velocity, double acceleration) {
+        loggedOutput[logHead] = output;
+        loggedVelocity[logHead] = velocity;
+        loggedAcceleration[logHead] = acceleration;
+        logHead = logHead == loggedOutput.length - 1 ? 0 : logHead + 1;
+        if(logSize < loggedOutput.length) logSize++;
+    }
+
+    public long getSamples() {
+        return samples;
+    }
+
+    public double getkS() {
+        return constants[0];
+    }
+
+    public double getkV() {
+        return constants[1];
+    }
+
+    public double getkA() {
+        return constants[2];
+    }
+
+    public double getkG() {
+        return count == 4 ? constants[3] : 0;
+    }
+
+    /**
+     * returns the current estimate as constant settings
+     * @return the estimated settings
+     */
+    public FeedForwardSettings getSettings() {
+        return new FeedForwardSettings(getkS(), getkV(), getkA(), getkG());
+    }
+
+    /**
+     * returns the amount of kept samples
+     * @return the amount of kept samples
+     */
+    public int getLogSize() {
+        return logSize;
+    }
+
+    /**
+     * returns the output of a kept sample
+     * @param index the index of the sample, 0 being the oldest kept sample
+     * @return the output
+     */
+    public double getLoggedOutput(int index) {
+        return loggedOutput[logIndex(index)];
+    }
+
+    /**
+     * returns the velocity of a kept sample
+     * @param index the index of the sample, 0 being the oldest kept sample
+     * @return the velocity
+     */
+    public double getLoggedVelocity(int index) {
+        return loggedVelocity[logIndex(index)];
+    }
+
+    /**
+     * returns the acceleration of a kept sample
+     * @param index the index of the sample, 0 being the oldest kept sample
+     * @return the acceleration
+     */
+    public double getLoggedAcceleration(int index) {
+        return loggedAcceleration[logIndex(index)];
+    }
+
+    private int logIndex(int index) {
+        if(index < 0 || index >= logSize) throw new IndexOutOfBoundsException("index " + index);
+        int physical = logHead - logSize + index;
+        return physical < 0 ? physical + loggedOutput.length : physical;
+    }
+}
@@ -1,86 +1,208 @@
 package com.spikes2212.control;
 
+import com.spikes2212.dashboard.Namespace;
+import com.spikes2212.util.Suppliers;
+import com.spikes2212.util.VersionedDoubleSupplier;
+
+import java.util.function.DoubleSupplier;
 import java.util.function.Supplier;
 
+/**
+ * The constants used in a {@link FeedForwardController}.
+ * <p>
+ * The settings carry a version, which changes whenever any of them changes, so commands can apply
+ * them to their controllers only when needed. Settings created from constant values or {@link Namespace}
+ * constants are never polled.
+ * The settings may be replaced and their version checked from different threads.
+ */
 public class FeedForwardSettings {
     public static final FeedForwardSettings EMPTY_FFSETTINGS = new FeedForwardSettings(0, 0);
 
     /**
      * The static constant
      */
-    private Supplier<Double> kS;
+    private DoubleSupplier kS;
 
     /**
      * The velocity constant
      */
-    private Supplier<Double> kV;
+    private DoubleSupplier kV;
 
     /**
      * The acceleration constant
      */
-    private Supplier<Double> kA;
+    private DoubleSupplier kA;
 
     /**
      * The gravity constant
      */
-    private Supplier<Double> kG;
+    private DoubleSupplier kG;
+
+    /**
+     * Changes whenever any of the settings changes.
+     */
+    private int version = 0;
+
+    /**
+     * The values of the settings when the version was last checked.
+     */
+    private double lastkS, lastkV, lastkA, lastkG;
+
+    /**
+     * Whether all of the settings are {@link VersionedDoubleSupplier}s, in which case the version follows
+     * their versions and they are not polled.
+     */
+    private boolean versioned;
+
+    /**
+     * The sum of the settings' versions when the version was last checked.
+     */
+    private int lastSourceVersion;
 
     public FeedForwardSettings(Supplier<Double> kS, Supplier<Double> kV, Supplier<Double> kA) {
-        this(kS, kV, kA, () -> 0.0);
+        this(Suppliers.unbox(kS), Suppliers.unbox(kV), Suppliers.unbox(kA), Suppliers.constant(0));
     }
 
     public FeedForwardSettings(Supplier<Double> kV, Supplier<Double> kA) {
-        this(() -> 0.0, kV, kA, () -> 0.0);
+        this(Suppliers.constant(0), Suppliers.unbox(kV), Suppliers.unbox(kA), Suppliers.constant(0));
+    }
+
+    public FeedForwardSettings(DoubleSupplier kS, DoubleSupplier kV, DoubleSupplier kA) {
+        this(kS, kV, kA, Suppliers.constant(0));
+    }
+
+    public FeedForwardSettings(DoubleSupplier kV, DoubleSupplier kA) {
+        this(Suppliers.constant(0), kV, kA, Suppliers.constant(0));
     }
 
     public FeedForwardSettings(double kS, double kV, double kA) {
-        this(() -> kS, () -> kV, () -> kA, () -> 0.0);
+        this(Suppliers.constant(kS), Suppliers.constant(kV), Suppliers.constant(kA), Suppliers.constant(0));
     }
 
     public FeedForwardSettings(double kV, double kA) {
-        this(() -> 0.0, () -> kV, () -> kA, () -> 0.0);
+        this(Suppliers.constant(0), Suppliers.constant(kV), Suppliers.constant(kA), Suppliers.constant(0));
     }
 
     public FeedForwardSettings(double kS, double kV, double kA, double kG) {
-        this(() -> kS, () -> kV, () -> kA, () -> kG);
+        this(Suppliers.constant(kS), Suppliers.constant(kV), Suppliers.constant(kA), Suppliers.constant(kG));
     }
 
     public FeedForwardSettings(Supplier<Double> kS, Supplier<Double> kV, Supplier<Double> kA, Supplier<Double> kG) {
+        this(Suppliers.unbox(kS), Suppliers.unbox(kV), Suppliers.unbox(kA), Suppliers.unbox(kG));
+    }
+
+    public FeedForwardSettings(DoubleSupplier kS, DoubleSupplier kV, DoubleSupplier kA, DoubleSupplier kG) {
         this.kS = kS;
         this.kV = kV;
         this.kA = kA;
         this.kG = kG;
+        sourcesReplaced();
     }
 
     public double getkS() {
-        return kS.get();
+        return kS.getAsDouble();
     }
 
     public void setkS(Supplier<Double> kS) {
+        setkS(Suppliers.unbox(kS));
+    }
+
+    public synchronized void setkS(DoubleSupplier kS) {
         this.kS = kS;
+        replaced();
     }
 
     public double getkV() {
-        return kV.get();
+        return kV.getAsDouble();
     }
 
     public void setkV(Supplier<Double> kV) {
+        setkV(Suppliers.unbox(kV));
+    }
+
+    public synchronized void setkV(DoubleSupplier kV) {
         this.kV = kV;
+        replaced();
     }
 
     public double getkA() {
-        return kA.get();
+        return kA.getAsDouble();
     }
 
     public void setkA(Supplier<Double> kA) {
+        setkA(Suppliers.unbox(kA));
+    }
+
+    public synchronized void setkA(DoubleSupplier kA) {
         this.kA = kA;
+        replaced();
     }
 
     public double getkG() {
-        return kG.get();
+        return kG.getAsDouble();
     }
 
     public void setkG(Supplier<Double> kG) {
+        setkG(Suppliers.unbox(kG));
+    }
+
+    public synchronized void setkG(DoubleSupplier kG) {
         this.kG = kG;
+        replaced();
+    }
+
+    /**
+     * returns the version of the settings, which changes whenever any of the settings changes.
+     * Settings which are all {@link VersionedDoubleSupplier}s, such as constants and {@link Namespace}
+     * constants, are not read; otherwise every call reads all of the settings.
+     * @return the version of the settings
+     */
+    public synchronized int getVersion() {
+        if(versioned) {
+            int sourceVersion = sourceVersion();
+            if(sourceVersion != lastSourceVersion) {
+                lastSourceVersion = sourceVersion;
+                version++;
+            }
+        } else if(changed(lastkS, getkS()) || changed(lastkV, getkV()) || changed(lastkA, getkA()) ||
+                changed(lastkG, getkG())) {
+            snapshot();
+            version++;
+        }
+        return version;
+    }
+
+    private void replaced() {
+        sourcesReplaced();
+        version++;
+    }
+
+    private void sourcesReplaced() {
+        versioned = kS instanceof VersionedDoubleSupplier && kV instanceof VersionedDoubleSupplier &&
+                kA instanceof VersionedDoubleSupplier && kG instanceof VersionedDoubleSupplier;
+        if(versioned) {
+            lastSourceVersion = sourceVersion();
+        } else {
+            snapshot();
+        }
+    }
+
+    private int sourceVersion() {
+        return version(kS) + version(kV) + version(kA) + version(kG);
+    }
+
+    private static int version(DoubleSupplier supplier) {
+        return ((VersionedDoubleSupplier)supplier).getVersion();
+    }
+
+    private void snapshot() {
+        lastkS = getkS();
+        lastkV = getkV();
+        lastkA = getkA();
+        lastkG = getkG();
+    }
+
+    private static boolean changed(double last, double current) {
+        return Double.compare(last, current) != 0;
     }
 }
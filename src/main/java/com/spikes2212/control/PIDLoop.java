@@ -0,0 +1,280 @@
+package com.spikes2212.control;
+
+/**
+ * A PID controller whose state is kept in primitive fields, so calculating never allocates.
+ * <p>
+ * The derivative is of the error, and can be passed through a first order low-pass filter so it isn't dominated
+ * by sensor noise. The integral term, which is the integral of the error multiplied by kI, is clamped to
+ * a range, so it can't wind up while the output is saturated. Since the term itself is accumulated,
+ * changing kI doesn't make the output jump.
+ * <p>
+ * The gains can be taken from {@link PIDSettings}, in which case they are applied whenever the settings' version
+ * changes. The controller can also calculate a whole recorded signal at once, for replaying it offline.
+ */
+public class PIDLoop {
+
+    /**
+     * The default range of the integral term, which is the range of a motor's output.
+     */
+    public static final double DEFAULT_MIN_INTEGRAL = -1, DEFAULT_MAX_INTEGRAL = 1;
+
+    private double kP, kI, kD;
+    private double tolerance = 0.05;
+
+    /**
+     * The time between calls to {@link #calculate(double)}, in seconds.
+     */
+    private final double period;
+
+    /**
+     * The settings the gains are taken from, or {@code null} if they are set directly,
+     * and the version of the settings which was last applied.
+     */
+    private final PIDSettings settings;
+    private int settingsVersion = -1;
+
+    private double minIntegral = DEFAULT_MIN_INTEGRAL, maxIntegral = DEFAULT_MAX_INTEGRAL;
+
+    /**
+     * The time constant of the derivative's low-pass filter, in seconds. 0 means the derivative isn't filtered.
+     */
+    private double derivativeFilterTime = 0;
+
+    private double setpoint = 0;
+    private double error = 0, integralTerm = 0, derivative = 0;
+
+    /**
+     * Whether the error was calculated since the last reset, so the derivative can be calculated.
+     */
+    private boolean hasError = false;
+
+    /**
+     * creates a new {@link PIDLoop}
+     * @param kP     the proportional gain
+     * @param kI     the integral gain
+     * @param kD     the derivative gain
+     * @param period the time between calls to {@link #calculate(double)}, in seconds
+     */
+    public PIDLoop(double kP, double kI, double kD, double period) {
+        this(null, period);
+        this.kP = kP;
+        this.kI = kI;
+        this.kD = kD;
+    }
+
+    public PIDLoop(double kP, double kI, double kD) {
+        this(kP, kI, kD, 0.02);
+    }
+
+    /**
+     * creates a new {@link PIDLoop} which takes its gains and tolerance from the given settings
+     * @param settings the settings
+     * @param period   the time between calls to {@link #calculate(double)}, in seconds
+     */
+    public PIDLoop(PIDSettings settings, double period) {
+        if(period <= 0) throw new IllegalArgumentException("period must be positive");
+        this.settings = settings;
+        this.period = period;
+        if(settings != null) applySettings();
+    }
+
+    public PIDLoop(PIDSettings settings) {
+        this(settings, 0.02);
+    }
+
+    public double getkP() {
+        return kP;
+    }
+
+    public double getkI() {
+        return kI;
+    }
+
+    public double getkD() {
+        return kD;
+    }
+
+    /**
+     * Sets the gains. If the controller takes its gains from {@link PIDSettings},
+     * they are replaced again the next time the settings change.
+     */
+    public void setPID(double kP, double kI, double kD) {
+        this.kP = kP;
+        this.kI = kI;
+        this.kD = kD;
+    }
+
+    public double getTolerance() {
+        return tolerance;
+    }
+
+    public void setTolerance(double tolerance) {
+        this.tolerance = tolerance;
+    }
+
+    public double getPeriod() {
+        return period;
+    }
+
+    public double getSetpoint() {
+        return setpoint;
+    }
+
+    public void setSetpoint(double setpoint) {
+        this.setpoint = setpoint;
+    }
+
+    /**
+     * Sets the range the integral term is clamped to, in units of output.
+     *
+     * @param minIntegral the minimum value of the integral term
+     * @param maxIntegral the maximum value of the integral term
+     */
+    public void setIntegralRange(double minIntegral, double maxIntegral) {
+        if(minIntegral > maxIntegral) throw new IllegalArgumentException("minIntegral must not exceed maxIntegral");
+        this.minIntegral = minIntegral;
+        this.maxIntegral = maxIntegral;
+        integralTerm = clamp(integralTerm, minIntegral, maxIntegral);
+    }
+
+    public double getDerivativeFilterTime() {
+        return derivativeFilterTime;
+    }
+
+    /**
+     * Sets the time constant of the derivative's low-pass filter. Noise much faster than it is filtered out,
+     * at the cost of the derivative lagging by about that long.
+     *
+     * @param derivativeFilterTime the time constant, in seconds, or 0 to not filter the derivative
+     */
+    public void setDerivativeFilterTime(double derivativeFilterTime) {
+        if(derivativeFilterTime < 0) throw new IllegalArgumentException("derivativeFilterTime must not be negative");
+        this.derivativeFilterTime = derivativeFilterTime;
+    }
+
+    public double getError() {
+        return error;
+    }
+
+    /**
+     * returns the current, filtered, derivative of the error
+     * @return the derivative of the error, per second
+     */
+    public double getDerivative() {
+        return derivative;
+    }
+
+    public double getIntegralTerm() {
+        return integralTerm;
+    }
+
+    /**
+     * returns whether the error was within the tolerance the last time the output was calculated
+     * @return whether the controller is at its setpoint
+     */
+    public boolean atSetpoint() {
+        return hasError && Math.abs(error) <= tolerance;
+    }
+
+    /**
+     * Clears the integral and the derivative, so the controller can be used again.
+     */
+    public void reset() {
+        error = 0;
+        integralTerm = 0;
+        derivative = 0;
+        hasError = false;
+    }
+
+    /**
+     * Calculates the output, assuming the period given in the constructor passed since the last call.
+     *
+     * @param measurement the current value of the process variable
+     * @return the output
+     */
+    public double calculate(double measurement) {
+        return calculate(measurement, setpoint, period);
+    }
+
+    /**
+     * Sets the setpoint and calculates the output, assuming the period given in the constructor passed
+     * since the last call.
+     *
+     * @param measurement the current value of the process variable
+     * @param setpoint    the setpoint
+     * @return the output
+     */
+    public double calculate(double measurement, double setpoint) {
+        return calculate(measurement, setpoint, period);
+    }
+
+    /**
+     * Sets the setpoint and calculates the output, given the time which actually passed since the last call.
+     *
+     * @param measurement the current value of the process variable
+     * @param setpoint    the setpoint
+     * @param dt          the time since the last call, in seconds
+     * @return the output
+     */
+    public double calculate(double measurement, double setpoint, double dt) {
+        if(settings != null) applySettings();
+        this.setpoint = setpoint;
+        double error = setpoint - measurement;
+        if(dt > 0) {
+            if(hasError) {
+                double rawDerivative = (error - this.error) / dt;
+                derivative += (rawDerivative - derivative) * dt / (derivativeFilterTime + dt);
+            }
+            integralTerm = clamp(integralTerm + kI * error * dt, minIntegral, maxIntegral);
+        }
+        this.error = error;
+        hasError = true;
+        return kP * error + integralTerm + kD * derivative;
+    }
+
+    /**
+     * Calculates the output for every measurement of a recorded signal, as if {@link #calculate(double)}
+     * was called with each of them in order.
+     *
+     * @param measurements the values of the process variable, one per period
+     * @param out          the array to write the outputs into, of at least the length of {@code measurements}
+     * @return the given array
+     */
+    public double[] calculate(double[] measurements, double[] out) {
+        if(out.length < measurements.length) throw new IllegalArgumentException("out is shorter than measurements");
+        if(settings != null) applySettings();
+        double kP = this.kP, kI = this.kI, kD = this.kD, setpoint = this.setpoint, period = this.period;
+        double alpha = period / (derivativeFilterTime + period), minIntegral = this.minIntegral,
+                maxIntegral = this.maxIntegral;
+        double error = this.error, integralTerm = this.integralTerm, derivative = this.derivative;
+        boolean hasError = this.hasError;
+        for(int i = 0; i < measurements.length; i++) {
+            double current = setpoint - measurements[i];
+            if(hasError) derivative += ((current - error) / period - derivative) * alpha;
+            integralTerm = clamp(integralTerm + kI * current * period, minIntegral, maxIntegral);
+            error = current;
+            hasError = true;
+            out[i] = kP * error + integralTerm + kD * derivative;
+        }
+        this.error = error;
+        this.integralTerm = integralTerm;
+        this.derivative = derivative;
+        this.hasError = hasError;
+        return out;
+    }
+
+    private void applySettings() {
+        int version = settings.getVersion();
+        if(version != settingsVersion) {
+            kP = settings.getkP();
+            kI = settings.getkI();
+            kD = settings.getkD();
+            tolerance = settings.getTolerance();
+            settingsVersion = version;
+        }
+    }
+
+    private static double clamp(double value, double min, double max) {
+        return Math.max(min, Math.min(max, value));
+    }
+}
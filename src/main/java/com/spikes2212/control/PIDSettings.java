@@ -1,94 +1,220 @@
 package com.spikes2212.control;
 
+import com.spikes2212.dashboard.Namespace;
+import com.spikes2212.util.Suppliers;
+import com.spikes2212.util.VersionedDoubleSupplier;
+
+import java.util.function.DoubleSupplier;
 import java.util.function.Supplier;
 
 /**
  * The PID constants used in a {@link PIDLoop}, and the error tolerance and loop wait time.
+ * <p>
+ * The settings carry a version, which changes whenever any of them changes, so commands can apply
+ * them to their controllers only when needed. Settings created from constant values or {@link Namespace}
+ * constants are never polled.
+ * The settings may be replaced and their version checked from different threads.
  */
 public class PIDSettings {
     /**
      * The proportional component of the PID settings.
      */
-    private Supplier<Double> kP;
+    private DoubleSupplier kP;
 
     /**
      * The integral component of the PID settings.
      */
-    private Supplier<Double> kI;
+    private DoubleSupplier kI;
 
     /**
      * The derivative component of the PID settings.
      */
-    private Supplier<Double> kD;
+    private DoubleSupplier kD;
 
     /**
      * The acceptable distance from the target.
      */
-    private Supplier<Double> tolerance;
+    private DoubleSupplier tolerance;
 
     /**
      * The time required to stay on target.
      */
-    private Supplier<Double> waitTime;
+    private DoubleSupplier waitTime;
+
+    /**
+     * Changes whenever any of the settings changes.
+     */
+    private int version = 0;
+
+    /**
+     * The values of the settings when the version was last checked.
+     */
+    private double lastkP, lastkI, lastkD, lastTolerance, lastWaitTime;
+
+    /**
+     * Whether all of the settings are {@link VersionedDoubleSupplier}s, in which case the version follows
+     * their versions and they are not polled.
+     */
+    private boolean versioned;
+
+    /**
+     * The sum of the settings' versions when the version was last checked.
+     */
+    private int lastSourceVersion;
 
     public PIDSettings(double kP, double tolerance, double waitTime) {
         this(kP, 0.0, 0.0, tolerance, waitTime);
     }
 
     public PIDSettings(double kP, double kI, double kD, double tolerance, double waitTime) {
-        this(() -> kP, () -> kI, () -> kD, () -> tolerance, () -> waitTime);
+        this(Suppliers.constant(kP), Suppliers.constant(kI), Suppliers.constant(kD), Suppliers.constant(tolerance),
+                Suppliers.constant(waitTime));
     }
 
     public PIDSettings(Supplier<Double> kP, Supplier<Double> tolerance, Supplier<Double> waitTime) {
-        this(kP, () -> 0.0, () -> 0.0, tolerance, waitTime);
+        this(Suppliers.unbox(kP), Suppliers.constant(0), Suppliers.constant(0), Suppliers.unbox(tolerance),
+                Suppliers.unbox(waitTime));
     }
 
     public PIDSettings(Supplier<Double> kP, Supplier<Double> kI, Supplier<Double> kD, Supplier<Double> tolerance,
                        Supplier<Double> waitTime) {
+        this(Suppliers.unbox(kP), Suppliers.unbox(kI), Suppliers.unbox(kD), Suppliers.unbox(tolerance),
+                Suppliers.unbox(waitTime));
+    }
+
+    public PIDSettings(DoubleSupplier kP, DoubleSupplier tolerance, DoubleSupplier waitTime) {
+        this(kP, Suppliers.constant(0), Suppliers.constant(0), tolerance, waitTime);
+    }
+
+    public PIDSettings(DoubleSupplier kP, DoubleSupplier kI, DoubleSupplier kD, DoubleSupplier tolerance,
+                       DoubleSupplier waitTime) {
         this.kP = kP;
         this.kI = kI;
         this.kD = kD;
         this.tolerance = tolerance;
         this.waitTime = waitTime;
+        sourcesReplaced();
     }
 
     public double getkP() {
-        return kP.get();
+        return kP.getAsDouble();
     }
 
     public void setkP(Supplier<Double> kP) {
+        setkP(Suppliers.unbox(kP));
+    }
+
+    public synchronized void setkP(DoubleSupplier kP) {
         this.kP = kP;
+        replaced();
     }
 
     public double getkI() {
-        return kI.get();
+        return kI.getAsDouble();
     }
 
     public void setkI(Supplier<Double> kI) {
+        setkI(Suppliers.unbox(kI));
+    }
+
+    public synchronized void setkI(DoubleSupplier kI) {
         this.kI = kI;
+        replaced();
     }
 
     public double getkD() {
-        return kD.get();
+        return kD.getAsDouble();
     }
 
     public void setkD(Supplier<Double> kD) {
+        setkD(Suppliers.unbox(kD));
+    }
+
+    public synchronized void setkD(DoubleSupplier kD) {
         this.kD = kD;
+        replaced();
     }
 
     public double getTolerance() {
-        return tolerance.get();
+        return tolerance.getAsDouble();
     }
 
     public void setTolerance(Supplier<Double> tolerance) {
+        setTolerance(Suppliers.unbox(tolerance));
+    }
+
+    public synchronized void setTolerance(DoubleSupplier tolerance) {
         this.tolerance = tolerance;
+        replaced();
     }
 
     public double getWaitTime() {
-        return waitTime.get();
+        return waitTime.getAsDouble();
     }
 
     public void setWaitTime(Supplier<Double> waitTime) {
+        setWaitTime(Suppliers.unbox(waitTime));
+    }
+
+    public synchronized void setWaitTime(DoubleSupplier waitTime) {
         this.waitTime = waitTime;
+        replaced();
+    }
+
+    /**
+     * returns the version of the settings, which changes whenever any of the settings changes.
+     * Settings which are all {@link VersionedDoubleSupplier}s, such as constants and {@link Namespace}
+     * constants, are not read; otherwise every call reads all of the settings.
+     * @return the version of the settings
+     */
+    public synchronized int getVersion() {
+        if(versioned) {
+            int sourceVersion = sourceVersion();
+            if(sourceVersion != lastSourceVersion) {
+                lastSourceVersion = sourceVersion;
+                version++;
+            }
+        } else if(changed(lastkP, getkP()) || changed(lastkI, getkI()) || changed(lastkD, getkD()) ||
+                changed(lastTolerance, getTolerance()) || changed(lastWaitTime, getWaitTime())) {
+            snapshot();
+            version++;
+        }
+        return version;
+    }
+
+    private void replaced() {
+        sourcesReplaced();
+        version++;
+    }
+
+    private void sourcesReplaced() {
+        versioned = kP instanceof VersionedDoubleSupplier && kI instanceof VersionedDoubleSupplier &&
+                kD instanceof VersionedDoubleSupplier && tolerance instanceof VersionedDoubleSupplier &&
+                waitTime instanceof VersionedDoubleSupplier;
+        if(versioned) {
+            lastSourceVersion = sourceVersion();
+        } else {
+            snapshot();
+        }
+    }
+
+    private int sourceVersion() {
+        return version(kP) + version(kI) + version(kD) + version(tolerance) + version(waitTime);
+    }
+
+    private static int version(DoubleSupplier supplier) {
+        return ((VersionedDoubleSupplier)supplier).getVersion();
+    }
+
+    private void snapshot() {
+        lastkP = getkP();
+        lastkI = getkI();
+        lastkD = getkD();
+        lastTolerance = getTolerance();
+        lastWaitTime = getWaitTime();
+    }
+
+    private static boolean changed(double last, double current) {
+        return Double.compare(last, current) != 0;
     }
 }
@@ -0,0 +1,254 @@
+package com.spikes2212.control;
+
+/**
+ * Finds PID gains for a mechanism with a relay feedback experiment.
+ * <p>
+ * The mechanism is given a constant output towards its setpoint, which flips whenever the mechanism crosses it.
+ * This makes the mechanism oscillate around the setpoint at its ultimate period, the period at which a
+ * proportional controller would keep it oscillating. The ultimate gain, the gain of that controller, follows from
+ * the amplitudes of the output and of the oscillation. Once enough consecutive cycles agree on both, the gains
+ * are calculated from them with a {@link TuningRule}.
+ * <p>
+ * Every cycle is analyzed as it ends, so nothing is recorded during the experiment.
+ */
+public class RelayAutoTuner {
+
+    /**
+     * The rules for calculating PID gains from the ultimate gain and period. Each rule sets kP as a fraction of
+     * the ultimate gain, and the integral and derivative times as fractions of the ultimate period.
+     */
+    public enum TuningRule {
+        ZIEGLER_NICHOLS(0.6, 0.5, 0.125),
+        TYREUS_LUYBEN(1 / 2.2, 2.2, 1 / 6.3),
+        PESSEN_INTEGRAL(0.7, 0.4, 0.15),
+        SOME_OVERSHOOT(1 / 3.0, 0.5, 1 / 3.0),
+        NO_OVERSHOOT(0.2, 0.5, 1 / 3.0);
+
+        private final double proportional, integralTime, derivativeTime;
+
+        TuningRule(double proportional, double integralTime, double derivativeTime) {
+            this.proportional = proportional;
+            this.integralTime = integralTime;
+            this.derivativeTime = derivativeTime;
+        }
+
+        public double getkP(double ultimateGain, double ultimatePeriod) {
+            return proportional * ultimateGain;
+        }
+
+        public double getkI(double ultimateGain, double ultimatePeriod) {
+            return getkP(ultimateGain, ultimatePeriod) / (integralTime * ultimatePeriod);
+        }
+
+        public double getkD(double ultimateGain, double ultimatePeriod) {
+            return getkP(ultimateGain, ultimatePeriod) * derivativeTime * ultimatePeriod;
+        }
+    }
+
+    /**
+     * The default amount of consecutive cycles which have to agree with the cycle before them.
+     */
+    public static final int DEFAULT_CYCLES = 3;
+
+    /**
+     * The default largest relative difference between consecutive cycles which still agree.
+     */
+    public static final double DEFAULT_CONSISTENCY = 0.05;
+
+    private final double setpoint, amplitude, hysteresis, bias;
+    private final int requiredCycles;
+    private final double consistency;
+    private TuningRule rule;
+
+    private double time = 0;
+    private boolean high;
+    private boolean started = false;
+
+    /**
+     * The start time of the current cycle, or -1 before the first cycle starts.
+     */
+    private double cycleStart = -1;
+    private double min = Double.POSITIVE_INFINITY, max = Double.NEGATIVE_INFINITY;
+    private int cycles = 0, consistentCycles = 0;
+    private double period = 0, oscillationAmplitude = 0;
+    private boolean done = false;
+
+    /**
+     * creates a new {@link RelayAutoTuner}
+     * @param setpoint       the position the mechanism oscillates around
+     * @param amplitude      the output given to the mechanism, which should make it move noticeably
+     * @param hysteresis     how far past the setpoint the mechanism must get for the output to flip,
+     *                       which should be above the measurement's noise
+     * @param bias           an output added to the relay's, such as the output which holds the mechanism
+     *                       against gravity
+     * @param rule           the rule for calculating the gains
+     * @param requiredCycles the amount of consecutive cycles which have to agree with the cycle before them
+     * @param consistency    the largest relative difference between consecutive cycles which still agree
+     */
+    public RelayAutoTuner(double setpoint, double amplitude, double hysteresis, double bias, TuningRule rule,
+                          int requiredCycles, double consistency) {
+        if(amplitude <= 0) throw new IllegalArgumentException("amplitude must be positive");
+        if(hysteresis < 0) throw new IllegalArgumentException("hysteresis must not be negative");
+        if(requiredCycles < 1) throw new IllegalArgumentException("requiredCycles must be positive");
+        this.setpoint = setpoint;
+        this.amplitude = amplitude;
+        this.hysteresis = hysteresis;
+        this.bias = bias;
+        this.rule = rule;
+        this.requiredCycles = requiredCycles;
+        this.consistency = consistency;
+    }
+
+    public RelayAutoTuner(double setpoint, double amplitude, double hysteresis, TuningRule rule) {
+        this(setpoint, amplitude, hysteresis, 0, rule, DEFAULT_CYCLES, DEFAULT_CONSISTENCY);
+    }
+
+    public TuningRule getRule() {
+        return rule;
+    }
+
+    /**
+     * Changes the rule the gains are calculated with. The experiment doesn't have to be repeated.
+     *
+     * @param rule the rule
+     */
+    public void setRule(TuningRule rule) {
+        this.rule = rule;
+    }
+
+    /**
+     * Restarts the experiment.
+     */
+    public void reset() {
+        time = 0;
+        started = false;
+        cycleStart = -1;
+        cycles = 0;
+        consistentCycles = 0;
+        period = 0;
+        oscillationAmplitude = 0;
+        min = Double.POSITIVE_INFINITY;
+        max = Double.NEGATIVE_INFINITY;
+        done = false;
+    }
+
+    /**
+     * Calculates the output the mechanism should be given, and analyzes the cycle if it has just ended.
+     *
+     * @param measurement the mechanism's position
+     * @param dt          the time since the last call, in seconds
+     * @return the output
+     */
+    public double calculate(double measurement, double dt) {
+        if(done) return bias;
+        double error = setpoint - measurement;
+        if(!started) {
+            high = error > 0;
+            started = true;
+        } else {
+            time += dt;
+        }
+        min = Math.min(min, measurement);
+        max = Math.max(max, measurement);
+        if(high && error < -hysteresis) {
+            high = false;
+        } else if(!high && error > hysteresis) {
+            high = true;
+            endCycle();
+        }
+        return bias + (high ? amplitude : -amplitude);
+    }
+
+    /**
+     * Runs the whole experiment on a simulated mechanism.
+     *
+     * @param plant   the mechanism
+     * @param timeout the longest the experiment may take, in simulated seconds
+     * @return whether the experiment finished
+     */
+    public boolean tune(SimulatedPlant plant, double timeout) {
+        for(double elapsed = 0; !done && elapsed < timeout; elapsed += plant.getPeriod()) {
+            plant.update(calculate(plant.getPosition(), plant.getPeriod()));
+        }
+        return done;
+    }
+
+    private void endCycle() {
+        if(cycleStart >= 0) {
+            double period = time - cycleStart, oscillationAmplitude = (max - min) / 2;
+            cycles++;
+            if(cycles > 1 && agrees(period, this.period) && agrees(oscillationAmplitude, this.oscillationAmplitude)) {
+                consistentCycles++;
+            } else {
+                consistentCycles = 0;
+            }
+            this.period = period;
+            this.oscillationAmplitude = oscillationAmplitude;
+            done = consistentCycles >= requiredCycles;
+        }
+        cycleStart = time;
+        min = Double.POSITIVE_INFINITY;
+        max = Double.NEGATIVE_INFINITY;
+    }
+
+    private boolean agrees(double value, double previous) {
+        return Math.abs(value - previous) <= consistency * Math.abs(previous);
+    }
+
+    /**
+     * returns whether enough consecutive cycles agreed for the gains to be calculated
+     * @return whether the experiment is done
+     */
+    public boolean isDone() {
+        return done;
+    }
+
+    /**
+     * returns the amount of complete cycles so far
+     * @return the amount of cycles
+     */
+    public int getCycles() {
+        return cycles;
+    }
+
+    /**
+     * returns the period of the last complete cycle
+     * @return the ultimate period, in seconds
+     */
+    public double getUltimatePeriod() {
+        return period;
+    }
+
+    /**
+     * returns the ultimate gain, as calculated from the last complete cycle
+     * @return the ultimate gain, or 0 before a cycle was completed
+     */
+    public double getUltimateGain() {
+        if(oscillationAmplitude <= 0) return 0;
+        double squared = oscillationAmplitude * oscillationAmplitude - hysteresis * hysteresis;
+        double effective = squared > 0 ? Math.sqrt(squared) : oscillationAmplitude;
+        return 4 * amplitude / (Math.PI * effective);
+    }
+
+    public double getkP() {
+        return rule.getkP(getUltimateGain(), getUltimatePeriod());
+    }
+
+    public double getkI() {
+        return period > 0 ? rule.getkI(getUltimateGain(), getUltimatePeriod()) : 0;
+    }
+
+    public double getkD() {
+        return rule.getkD(getUltimateGain(), getUltimatePeriod());
+    }
+
+    /**
+     * returns the proposed gains as constant settings
+     * @param tolerance the acceptable distance from the target
+     * @param waitTime  the time required to stay on target
+     * @return the settings
+     */
+    public PIDSettings getSettings(double tolerance, double waitTime) {
+        return new PIDSettings(getkP(), getkI(), getkD(), tolerance, waitTime);
+    }
+}
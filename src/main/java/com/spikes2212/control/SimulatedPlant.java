@@ -0,0 +1,77 @@
+package com.spikes2212.control;
+
+/**
+ * A simulated mechanism, for trying out controllers without a robot.
+ * <p>
+ * The mechanism's velocity approaches {@code gain * output} with the given time constant, and its position is the
+ * integral of the velocity. The output only affects the mechanism after a dead time, like the delays of
+ * a real motor controller and sensor. The simulation advances by a fixed period on every update.
+ */
+public class SimulatedPlant {
+
+    private final double gain, timeConstant, period;
+
+    /**
+     * The outputs which haven't affected the mechanism yet, in a ring buffer.
+     */
+    private final double[] delayedOutputs;
+    private int delayIndex = 0;
+
+    private double position = 0, velocity = 0;
+
+    /**
+     * creates a new {@link SimulatedPlant}
+     * @param gain         the mechanism's velocity when given an output of 1, after it settles
+     * @param timeConstant the time it takes the velocity to get about 63% of the way to its final value, in seconds
+     * @param deadTime     the time it takes an output to start affecting the mechanism, in seconds
+     * @param period       the time each update advances the simulation by, in seconds
+     */
+    public SimulatedPlant(double gain, double timeConstant, double deadTime, double period) {
+        if(timeConstant <= 0 || period <= 0) throw new IllegalArgumentException("times must be positive");
+        if(deadTime < 0) throw new IllegalArgumentException("deadTime must not be negative");
+        this.gain = gain;
+        this.timeConstant = timeConstant;
+        this.period = period;
+        this.delayedOutputs = new double[(int)Math.round(deadTime / period) + 1];
+    }
+
+    public double getPeriod() {
+        return period;
+    }
+
+    public double getPosition() {
+        return position;
+    }
+
+    public double getVelocity() {
+        return velocity;
+    }
+
+    /**
+     * Gives the mechanism an output and advances the simulation by one period.
+     *
+     * @param output the output, as given to a motor
+     */
+    public void update(double output) {
+        delayedOutputs[delayIndex] = output;
+        delayIndex = delayIndex == delayedOutputs.length - 1 ? 0 : delayIndex + 1;
+        double applied = delayedOutputs[delayIndex];
+        double decay = Math.exp(-period / timeConstant), target = gain * applied;
+        double nextVelocity = target + (velocity - target) * decay;
+        position += target * period + (velocity - target) * timeConstant * (1 - decay);
+        velocity = nextVelocity;
+    }
+
+    /**
+     * Stops the mechanism and moves it to the given position.
+     *
+     * @param position the position
+     */
+    public void reset(double position) {
+        this.position = position;
+        velocity = 0;
+        for(int i = 0; i < delayedOutputs.length; i++) {
+            delayedOutputs[i] = 0;
+        }
+    }
+}
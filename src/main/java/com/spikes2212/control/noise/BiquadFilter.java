@@ -0,0 +1,149 @@
+package com.spikes2212.control.noise;
+
+/**
+ * A {@link NoiseFilter} made of cascaded second order IIR sections (biquads), such as a Butterworth low-pass
+ * or a notch filter.
+ * <p>
+ * A Butterworth low-pass filter passes the signal below its cutoff frequency with no ripple and attenuates
+ * the noise above it much more steeply than an {@link ExponentialFilter}, so for the same noise it lags less.
+ * A notch filter removes a single frequency, such as a mechanism's vibration, and leaves the rest of the signal.
+ * <p>
+ * The filters are designed with the bilinear transform, prewarped at the cutoff frequency. Every section is
+ * calculated in transposed direct form II, using preallocated coefficients and state. The first measurement
+ * primes the filter as if it had always been measured, so there is no startup transient.
+ */
+public class BiquadFilter implements NoiseFilter {
+
+    /**
+     * The coefficients of every section, normalized so the feedback coefficient of the output is 1.
+     */
+    private final double[] b0, b1, b2, a1, a2;
+
+    /**
+     * The state of every section.
+     */
+    private final double[] z1, z2;
+
+    private boolean primed = false;
+
+    /**
+     * creates a new {@link BiquadFilter} from the coefficients of its sections, normalized so {@code a0} is 1
+     */
+    public BiquadFilter(double[] b0, double[] b1, double[] b2, double[] a1, double[] a2) {
+        int sections = b0.length;
+        if(sections == 0 || b1.length != sections || b2.length != sections || a1.length != sections ||
+                a2.length != sections)
+            throw new IllegalArgumentException("every section must have all coefficients");
+        this.b0 = b0.clone();
+        this.b1 = b1.clone();
+        this.b2 = b2.clone();
+        this.a1 = a1.clone();
+        this.a2 = a2.clone();
+        z1 = new double[sections];
+        z2 = new double[sections];
+    }
+
+    /**
+     * Designs a Butterworth low-pass filter.
+     *
+     * @param cutoff     the frequency above which the signal is attenuated, in Hz
+     * @param sampleRate the rate the filter is calculated at, in Hz
+     * @param order      the order of the filter. Higher orders attenuate more steeply but lag more
+     * @return the filter
+     */
+    public static BiquadFilter lowPass(double cutoff, double sampleRate, int order) {
+        if(order < 1) throw new IllegalArgumentException("order must be positive");
+        checkFrequency(cutoff, sampleRate);
+        int sections = (order + 1) / 2;
+        double[] b0 = new double[sections], b1 = new double[sections], b2 = new double[sections],
+                a1 = new double[sections], a2 = new double[sections];
+        double k = Math.tan(Math.PI * cutoff / sampleRate);
+        for(int i = 0; i < order / 2; i++) {
+            double q = 1 / (2 * Math.sin(Math.PI * (2 * i + 1) / (2 * order)));
+            double norm = 1 / (1 + k / q + k * k);
+            b0[i] = k * k * norm;
+            b1[i] = 2 * b0[i];
+            b2[i] = b0[i];
+            a1[i] = 2 * (k * k - 1) * norm;
+            a2[i] = (1 - k / q + k * k) * norm;
+        }
+        if(order % 2 == 1) { // a first order section, written as a biquad
+            int i = sections - 1;
+            double norm = 1 / (1 + k);
+            b0[i] = k * norm;
+            b1[i] = b0[i];
+            a1[i] = (k - 1) * norm;
+        }
+        return new BiquadFilter(b0, b1, b2, a1, a2);
+    }
+
+    /**
+     * Designs a second order Butterworth low-pass filter.
+     *
+     * @param cutoff     the frequency above which the signal is attenuated, in Hz
+     * @param sampleRate the rate the filter is calculated at, in Hz
+     * @return the filter
+     */
+    public static BiquadFilter lowPass(double cutoff, double sampleRate) {
+        return lowPass(cutoff, sampleRate, 2);
+    }
+
+    /**
+     * Designs a notch filter.
+     *
+     * @param frequency  the frequency to remove, in Hz
+     * @param sampleRate the rate the filter is calculated at, in Hz
+     * @param q          the quality of the notch: the removed frequency divided by the width of the notch
+     * @return the filter
+     */
+    public static BiquadFilter notch(double frequency, double sampleRate, double q) {
+        checkFrequency(frequency, sampleRate);
+        if(q <= 0) throw new IllegalArgumentException("q must be positive");
+        double k = Math.tan(Math.PI * frequency / sampleRate);
+        double norm = 1 / (1 + k / q + k * k);
+        double b0 = (1 + k * k) * norm, b1 = 2 * (k * k - 1) * norm;
+        return new BiquadFilter(new double[]{b0}, new double[]{b1}, new double[]{b0}, new double[]{b1},
+                new double[]{(1 - k / q + k * k) * norm});
+    }
+
+    private static void checkFrequency(double frequency, double sampleRate) {
+        if(frequency <= 0 || frequency >= sampleRate / 2)
+            throw new IllegalArgumentException("frequency must be between 0 and half the sample rate");
+    }
+
+    public int getSections() {
+        return b0.length;
+    }
+
+    @Override
+    public void reset() {
+        primed = false;
+    }
+
+    @Override
+    public double calculate(double measurement) {
+        if(!primed) prime(measurement);
+        double value = measurement;
+        for(int i = 0; i < b0.length; i++) {
+            double output = b0[i] * value + z1[i];
+            z1[i] = b1[i] * value - a1[i] * output + z2[i];
+            z2[i] = b2[i] * value - a2[i] * output;
+            value = output;
+        }
+        return value;
+    }
+
+    /**
+     * Sets the state of every section as if its input had always been the given value.
+     */
+    private void prime(double measurement) {
+        double value = measurement;
+        for(int i = 0; i < b0.length; i++) {
+            double gain = (b0[i] + b1[i] + b2[i]) / (1 + a1[i] + a2[i]), output = gain * value;
+            z2[i] = b2[i] * value - a2[i] * output;
+            z1[i] = b1[i] * value - a1[i] * output + z2[i];
+            value = output;
+        }
+        primed = true;
+    }
+}
@@ -12,6 +12,11 @@ public class ExponentialFilter implements NoiseFilter {
     }
 
 
+    @Override
+    public void reset() {
+        previous = 0;
+    }
+
     @Override
     public double calculate(double measurement) {
         double calculation = w * measurement + (1-w) * previous;
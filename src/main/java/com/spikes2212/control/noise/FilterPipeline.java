@@ -0,0 +1,149 @@
+package com.spikes2212.control.noise;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A {@link NoiseFilter} which passes every measurement through a chain of filters, in order.
+ * <p>
+ * Pipelines are built with a {@link Builder}, for example:
+ * <pre>{@code
+ * NoiseFilter filter = new FilterPipeline.Builder()
+ *         .clamp(-10, 10)
+ *         .median(5)
+ *         .lowPass(10, 50, 2)
+ *         .rateLimit(20, 0.02)
+ *         .build();
+ * }</pre>
+ * A recorded signal can be filtered with {@link #calculate(double[], double[], int)}, which passes the whole signal
+ * through each filter before moving on to the next one, so the same pipeline can be tried on logged data offline.
+ * {@link #reset()} rewinds every filter, so that the pipeline can be run on another recording.
+ */
+public class FilterPipeline implements NoiseFilter {
+
+    /**
+     * Builds a {@link FilterPipeline}. Every method adds a filter to the end of the chain.
+     * The filters keep state, so a builder can only build a single pipeline.
+     */
+    public static class Builder {
+
+        private final List<NoiseFilter> stages = new ArrayList<>();
+        private boolean built = false;
+
+        public Builder add(NoiseFilter filter) {
+            if(built) throw new IllegalStateException("the pipeline was already built");
+            stages.add(filter);
+            return this;
+        }
+
+        /**
+         * Limits the measurements to a range, so that impossible values don't affect the following filters.
+         */
+        public Builder clamp(double min, double max) {
+            if(min > max) throw new IllegalArgumentException("min must not exceed max");
+            return add(measurement -> Math.max(min, Math.min(max, measurement)));
+        }
+
+        public Builder median(int window) {
+            return add(new SlidingMedianFilter(window));
+        }
+
+        public Builder hampel(int window, double threshold) {
+            return add(new HampelFilter(window, threshold));
+        }
+
+        public Builder movingAverage(int window) {
+            return add(new MovingAverageFilter(window));
+        }
+
+        public Builder exponential(double weight) {
+            return add(new ExponentialFilter(weight));
+        }
+
+        public Builder lowPass(double cutoff, double sampleRate, int order) {
+            return add(BiquadFilter.lowPass(cutoff, sampleRate, order));
+        }
+
+        public Builder notch(double frequency, double sampleRate, double q) {
+            return add(BiquadFilter.notch(frequency, sampleRate, q));
+        }
+
+        public Builder kalman(double measurementStdDev, double accelerationStdDev, double period) {
+            return add(new KalmanFilter(measurementStdDev, accelerationStdDev, period));
+        }
+
+        /**
+         * Limits how fast the filtered value may change.
+         *
+         * @param maxRate the largest change per second
+         * @param period  the time between measurements, in seconds
+         */
+        public Builder rateLimit(double maxRate, double period) {
+            return add(new RateLimit(maxRate * period));
+        }
+
+        public FilterPipeline build() {
+            if(built) throw new IllegalStateException("the pipeline was already built");
+            if(stages.isEmpty()) throw new IllegalStateException("a pipeline needs at least one filter");
+            built = true;
+            return new FilterPipeline(stages.toArray(new NoiseFilter[0]));
+        }
+    }
+
+    private static class RateLimit implements NoiseFilter {
+
+        private final double maxChange;
+        private double last;
+        private boolean started = false;
+
+        private RateLimit(double maxChange) {
+            this.maxChange = maxChange;
+        }
+
+        @Override
+        public double calculate(double measurement) {
+            last = started ? last + Math.max(-maxChange, Math.min(maxChange, measurement - last)) : measurement;
+            started = true;
+            return last;
+        }
+
+        @Override
+        public void reset() {
+            started = false;
+        }
+    }
+
+    private final NoiseFilter[] stages;
+
+    private FilterPipeline(NoiseFilter[] stages) {
+        this.stages = stages;
+    }
+
+    public int getStages() {
+        return stages.length;
+    }
+
+    @Override
+    public double calculate(double measurement) {
+        double value = measurement;
+        for(NoiseFilter stage : stages) {
+            value = stage.calculate(value);
+        }
+        return value;
+    }
+
+    @Override
+    public void reset() {
+        for(NoiseFilter stage : stages) {
+            stage.reset();
+        }
+    }
+
+    @Override
+    public void calculate(double[] in, double[] out, int length) {
+        stages[0].calculate(in, out, length);
+        for(int i = 1; i < stages.length; i++) {
+            stages[i].calculate(out, out, length);
+        }
+    }
+}
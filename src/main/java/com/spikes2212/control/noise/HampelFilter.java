@@ -0,0 +1,99 @@
+package com.spikes2212.control.noise;
+
+/**
+ * A {@link NoiseFilter} which replaces outliers with the median of the latest measurements, and passes every other
+ * measurement through unchanged.
+ * <p>
+ * A measurement is an outlier if its distance from the median is more than {@code threshold} times the
+ * window's scaled median absolute deviation, which estimates the standard deviation of the measurements
+ * while ignoring outliers. The median is kept by a {@link SlidingMedianFilter}; the deviation is found by
+ * selection in a preallocated array, which takes time linear in the window's size.
+ */
+public class HampelFilter implements NoiseFilter {
+
+    /**
+     * Scales the median absolute deviation of normally distributed measurements to their standard deviation.
+     */
+    private static final double MAD_SCALE = 1.4826;
+
+    /**
+     * The default threshold, in standard deviations.
+     */
+    public static final double DEFAULT_THRESHOLD = 3;
+
+    private final SlidingMedianFilter median;
+    private final double threshold;
+    private final double[] deviations;
+
+    /**
+     * creates a new {@link HampelFilter}
+     * @param window    the amount of measurements the median and deviation are taken of
+     * @param threshold how many standard deviations from the median a measurement must be to be an outlier
+     */
+    public HampelFilter(int window, double threshold) {
+        this.median = new SlidingMedianFilter(window);
+        this.threshold = threshold;
+        this.deviations = new double[window];
+    }
+
+    public HampelFilter(int window) {
+        this(window, DEFAULT_THRESHOLD);
+    }
+
+    @Override
+    public void reset() {
+        median.reset();
+    }
+
+    @Override
+    public double calculate(double measurement) {
+        double median = this.median.calculate(measurement);
+        int size = this.median.size();
+        for(int i = 0; i < size; i++) {
+            deviations[i] = Math.abs(this.median.get(i) - median);
+        }
+        double deviation = MAD_SCALE * median(deviations, size);
+        return Math.abs(measurement - median) > threshold * deviation ? median : measurement;
+    }
+
+    /**
+     * Finds the median of the first {@code size} elements of the array, reordering them.
+     */
+    private static double median(double[] array, int size) {
+        int middle = size / 2;
+        double upper = select(array, size, middle);
+        if(size % 2 == 1) return upper;
+        double lower = array[0];
+        for(int i = 1; i < middle; i++) { // after selecting, the elements before the middle are the smaller ones
+            lower = Math.max(lower, array[i]);
+        }
+        return (lower + upper) / 2;
+    }
+
+    /**
+     * Finds the k-th smallest of the first {@code size} elements of the array with quickselect,
+     * leaving the smaller elements before it.
+     */
+    private static double select(double[] array, int size, int k) {
+        int left = 0, right = size - 1;
+        while(left < right) {
+            double pivot = array[(left + right) >>> 1];
+            int i = left, j = right;
+            while(i <= j) {
+                while(array[i] < pivot) i++;
+                while(array[j] > pivot) j--;
+                if(i <= j) {
+                    double temp = array[i];
+                    array[i] = array[j];
+                    array[j] = temp;
+                    i++;
+                    j--;
+                }
+            }
+            if(k <= j) right = j;
+            else if(k >= i) left = i;
+            else break;
+        }
+        return array[k];
+    }
+}
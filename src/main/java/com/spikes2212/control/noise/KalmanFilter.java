@@ -0,0 +1,101 @@
+package com.spikes2212.control.noise;
+
+/**
+ * A {@link NoiseFilter} which estimates the position and velocity of a signal with a Kalman filter, assuming
+ * the signal moves at a constant velocity which is disturbed by random accelerations.
+ * <p>
+ * Unlike averaging filters, it predicts where the signal has moved since the last measurement, so it doesn't
+ * lag behind a signal which changes at a steady rate. Its smoothing is set by two variances: of the
+ * measurements' noise, and of the signal's acceleration. It also estimates the velocity, which is much less
+ * noisy than differentiating the measurements.
+ * <p>
+ * The state and covariance are kept in primitive fields, so calculating doesn't allocate.
+ */
+public class KalmanFilter implements NoiseFilter {
+
+    private final double accelerationVariance, measurementVariance, period;
+
+    private double position, velocity;
+
+    /**
+     * The covariance of the position and velocity estimates.
+     */
+    private double p00, p01, p11;
+
+    private boolean initialized = false;
+
+    /**
+     * creates a new {@link KalmanFilter}
+     * @param measurementStdDev  the standard deviation of the measurements' noise
+     * @param accelerationStdDev the standard deviation of the signal's acceleration. Lower values smooth more,
+     *                           but follow changes in velocity slower
+     * @param period             the time between measurements, in seconds
+     */
+    public KalmanFilter(double measurementStdDev, double accelerationStdDev, double period) {
+        if(measurementStdDev <= 0 || period <= 0)
+            throw new IllegalArgumentException("measurementStdDev and period must be positive");
+        this.measurementVariance = measurementStdDev * measurementStdDev;
+        this.accelerationVariance = accelerationStdDev * accelerationStdDev;
+        this.period = period;
+    }
+
+    public double getPosition() {
+        return position;
+    }
+
+    /**
+     * returns the estimated velocity of the signal
+     * @return the velocity, in units per second
+     */
+    public double getVelocity() {
+        return velocity;
+    }
+
+    @Override
+    public void reset() {
+        initialized = false;
+    }
+
+    /**
+     * Estimates the position, assuming the period given in the constructor passed since the last measurement.
+     *
+     * @param measurement the measurement
+     * @return the estimated position
+     */
+    @Override
+    public double calculate(double measurement) {
+        return calculate(measurement, period);
+    }
+
+    /**
+     * Estimates the position, given the time which actually passed since the last measurement.
+     *
+     * @param measurement the measurement
+     * @param dt          the time since the last measurement, in seconds
+     * @return the estimated position
+     */
+    public double calculate(double measurement, double dt) {
+        if(!initialized) {
+            position = measurement;
+            velocity = 0;
+            p00 = measurementVariance;
+            p01 = 0;
+            p11 = 2 * measurementVariance / (period * period); // as uncertain as differentiating two measurements
+            initialized = true;
+            return position;
+        }
+        position += velocity * dt;
+        double dt2 = dt * dt;
+        p00 += dt * (2 * p01 + dt * p11) + accelerationVariance * dt2 * dt2 / 4;
+        p01 += dt * p11 + accelerationVariance * dt2 * dt / 2;
+        p11 += accelerationVariance * dt2;
+        double innovation = measurement - position, s = p00 + measurementVariance;
+        double k0 = p00 / s, k1 = p01 / s;
+        position += k0 * innovation;
+        velocity += k1 * innovation;
+        p11 -= k1 * p01;
+        p01 -= k0 * p01;
+        p00 -= k0 * p00;
+        return position;
+    }
+}
@@ -0,0 +1,54 @@
+package com.spikes2212.control.noise;
+
+/**
+ * A {@link NoiseFilter} which averages the latest measurements in a fixed size window.
+ * <p>
+ * The measurements are kept in a preallocated ring buffer, and the sum is updated with every measurement,
+ * so calculating takes constant time regardless of the window's size. The sum is recalculated once per window
+ * so floating point errors can't accumulate.
+ */
+public class MovingAverageFilter implements NoiseFilter {
+
+    private final double[] window;
+    private int next = 0, size = 0;
+    private double sum = 0;
+
+    /**
+     * creates a new {@link MovingAverageFilter}
+     * @param window the amount of measurements averaged
+     */
+    public MovingAverageFilter(int window) {
+        if(window < 1) throw new IllegalArgumentException("window must be positive");
+        this.window = new double[window];
+    }
+
+    public int getWindow() {
+        return window.length;
+    }
+
+    @Override
+    public void reset() {
+        next = 0;
+        size = 0;
+        sum = 0;
+    }
+
+    @Override
+    public double calculate(double measurement) {
+        if(size == window.length) {
+            sum -= window[next];
+        } else {
+            size++;
+        }
+        window[next] = measurement;
+        sum += measurement;
+        next = next == window.length - 1 ? 0 : next + 1;
+        if(next == 0) {
+            sum = 0;
+            for(int i = 0; i < size; i++) {
+                sum += window[i];
+            }
+        }
+        return sum / size;
+    }
+}
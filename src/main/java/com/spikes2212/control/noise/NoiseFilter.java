@@ -4,4 +4,25 @@ public interface NoiseFilter {
 
     double calculate(double measurement);
 
+    /**
+     * Forgets every measurement, so that the next one is filtered as if it was the first.
+     * Filters which keep no state don't have to override this.
+     */
+    default void reset() {
+    }
+
+    /**
+     * Filters a recorded signal, as if {@link #calculate(double)} was called with each of its measurements in order.
+     * {@code in} and {@code out} may be the same array. The filter continues from its current state, so
+     * {@link #reset()} should be called first to filter a recording from its start.
+     *
+     * @param in     the measurements
+     * @param out    the array to write the filtered values into
+     * @param length the amount of measurements
+     */
+    default void calculate(double[] in, double[] out, int length) {
+        for(int i = 0; i < length; i++) {
+            out[i] = calculate(in[i]);
+        }
+    }
 }
@@ -1,20 +1,174 @@
 package com.spikes2212.control.noise;
 
+import com.spikes2212.control.ControlLoop;
+import com.spikes2212.util.Suppliers;
+import edu.wpi.first.wpilibj2.command.CommandScheduler;
+import edu.wpi.first.wpilibj2.command.SubsystemBase;
+
+import java.util.function.DoubleSupplier;
+import java.util.function.LongSupplier;
 import java.util.function.Supplier;
 
+/**
+ * A {@link Supplier} which filters the values of another supplier using a {@link NoiseFilter}.
+ * Pass {@code noiseReducer::getAsDouble} where a {@link DoubleSupplier} is accepted to avoid boxing.
+ * <p>
+ * A noise reducer can be given a cycle, such as {@link #ROBOT_CYCLE} or a {@link ControlLoop}'s iterations.
+ * It then reads the source and advances the filter only on the first call of every cycle, and returns the same
+ * value for the rest of it, so it can be shared by several consumers, such as a command, an odometry handler and
+ * a dashboard, without each of them advancing the filter and getting a value which depends on the order they
+ * were called in. Without a cycle, every call reads the source and advances the filter.
+ */
 public class NoiseReducer implements Supplier<Double> {
 
-    private Supplier<Double> source;
+    /**
+     * The robot's cycle, advanced once per robot period by {@link RobotCycle} or by {@link #nextCycle()}.
+     */
+    private static volatile long robotCycle = 0;
+
+    /**
+     * Whether {@link #nextCycle()} was called since the last time {@link RobotCycle} ran.
+     */
+    private static volatile boolean advancedManually = false;
+
+    /**
+     * The robot's cycle, for noise reducers which are sampled once per robot period.
+     * <p>
+     * It is advanced automatically by a subsystem which is registered with the {@link CommandScheduler} when the
+     * first noise reducer using it is constructed, so it keeps changing as long as the scheduler is run.
+     * Subsystems registered before that one see the previous period's value in their {@code periodic()}.
+     * Call {@link #nextCycle()} in order for every subsystem to see the current period's value.
+     */
+    public static final LongSupplier ROBOT_CYCLE = () -> robotCycle;
+
+    /**
+     * Starts a new cycle for the noise reducers which use {@link #ROBOT_CYCLE}. Calling this is optional, but
+     * when it is called first thing in {@code robotPeriodic()}, before {@code CommandScheduler.getInstance().run()},
+     * the subsystems' {@code periodic()} and the commands all see the same sample, regardless of the order the
+     * subsystems were registered in:
+     * <pre>{@code
+     * public void robotPeriodic() {
+     *     NoiseReducer.nextCycle();
+     *     CommandScheduler.getInstance().run();
+     * }
+     * }</pre>
+     * The cycle is then not advanced again by the scheduler in the same period.
+     * It should only be called from the robot's main thread.
+     */
+    public static void nextCycle() {
+        robotCycle++;
+        advancedManually = true;
+    }
+
+    /**
+     * Advances {@link #ROBOT_CYCLE} on every run of the {@link CommandScheduler}, unless {@link #nextCycle()}
+     * was already called since its last run.
+     */
+    private static class RobotCycle extends SubsystemBase {
+
+        private static RobotCycle instance;
+
+        /**
+         * Registers the subsystem, if it is not registered already.
+         */
+        static synchronized void register() {
+            if(instance == null) {
+                instance = new RobotCycle();
+            }
+        }
+
+        @Override
+        public void periodic() {
+            if(!advancedManually) {
+                robotCycle++;
+            }
+            advancedManually = false;
+        }
+    }
+
+    private DoubleSupplier source;
 
     private NoiseFilter filter;
 
+    /**
+     * The cycle the value is sampled once in, or {@code null} to sample it on every call.
+     */
+    private final LongSupplier cycle;
+
+    private long lastCycle;
+    private boolean sampled = false;
+    private double value;
+    private long reads = 0, avoidedReads = 0;
+
     public NoiseReducer(Supplier<Double> source, NoiseFilter filter) {
+        this(Suppliers.unbox(source), filter);
+    }
+
+    public NoiseReducer(DoubleSupplier source, NoiseFilter filter) {
+        this(source, filter, null);
+    }
+
+    public NoiseReducer(Supplier<Double> source, NoiseFilter filter, LongSupplier cycle) {
+        this(Suppliers.unbox(source), filter, cycle);
+    }
+
+    /**
+     * creates a new {@link NoiseReducer} which samples its source once per cycle
+     * @param source the supplier to filter
+     * @param filter the filter
+     * @param cycle  a counter which changes when a new cycle starts, such as {@link #ROBOT_CYCLE},
+     *               or {@code null} to sample the source on every call
+     */
+    public NoiseReducer(DoubleSupplier source, NoiseFilter filter, LongSupplier cycle) {
         this.source = source;
         this.filter = filter;
+        this.cycle = cycle;
+        if(cycle == ROBOT_CYCLE) {
+            RobotCycle.register();
+        }
+    }
+
+    /**
+     * returns the filtered value of the source, without boxing it. With a cycle, the source is only read
+     * on the first call of every cycle
+     * @return the filtered value
+     */
+    public double getAsDouble() {
+        if(cycle == null) {
+            return filter.calculate(source.getAsDouble());
+        }
+        synchronized(this) {
+            long current = cycle.getAsLong();
+            if(sampled && current == lastCycle) {
+                avoidedReads++;
+            } else {
+                value = filter.calculate(source.getAsDouble());
+                reads++;
+                lastCycle = current;
+                sampled = true;
+            }
+            return value;
+        }
     }
 
     @Override
     public Double get() {
-        return filter.calculate(source.get());
+        return getAsDouble();
+    }
+
+    /**
+     * returns the amount of times the source was read, if this noise reducer has a cycle
+     * @return the amount of reads
+     */
+    public synchronized long getReads() {
+        return reads;
+    }
+
+    /**
+     * returns the amount of calls which returned the value of the current cycle instead of reading the source
+     * @return the amount of avoided reads
+     */
+    public synchronized long getAvoidedReads() {
+        return avoidedReads;
     }
 }
@@ -6,7 +6,8 @@ public class RunningAverageFilter implements NoiseFilter {
     private int count = 0;
 
 
-    private void reset() {
+    @Override
+    public void reset() {
         sum = 0;
         count = 0;
     }
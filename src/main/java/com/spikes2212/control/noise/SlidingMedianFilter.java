@@ -0,0 +1,179 @@
+package com.spikes2212.control.noise;
+
+/**
+ * A {@link NoiseFilter} which returns the median of the latest measurements in a fixed size window.
+ * Unlike an average, the median ignores single outliers entirely.
+ * <p>
+ * The measurements are kept in a preallocated ring buffer, and split between two heaps: a max heap of the
+ * lower half and a min heap of the upper half, so the median is always at their tops. The heaps hold the
+ * measurements' indices in the ring buffer, and every measurement's position in its heap is tracked,
+ * so the oldest measurement can be removed in logarithmic time.
+ */
+public class SlidingMedianFilter implements NoiseFilter {
+
+    private final double[] values;
+    private int next = 0, size = 0;
+
+    /**
+     * The heaps of indices into {@code values}. The lower heap holds as many indices as the upper heap,
+     * or one more.
+     */
+    private final int[] lower, upper;
+    private int lowerSize = 0, upperSize = 0;
+
+    /**
+     * The position of every index in its heap, and whether the heap is the lower one.
+     */
+    private final int[] positions;
+    private final boolean[] inLower;
+
+    /**
+     * creates a new {@link SlidingMedianFilter}
+     * @param window the amount of measurements the median is taken of
+     */
+    public SlidingMedianFilter(int window) {
+        if(window < 1) throw new IllegalArgumentException("window must be positive");
+        values = new double[window];
+        lower = new int[window];
+        upper = new int[window];
+        positions = new int[window];
+        inLower = new boolean[window];
+    }
+
+    public int getWindow() {
+        return values.length;
+    }
+
+    @Override
+    public void reset() {
+        next = 0;
+        size = 0;
+        lowerSize = 0;
+        upperSize = 0;
+    }
+
+    @Override
+    public double calculate(double measurement) {
+        int index = next;
+        if(size == values.length) {
+            remove(index);
+        } else {
+            size++;
+        }
+        values[index] = measurement;
+        if(lowerSize == 0 || measurement <= values[lower[0]]) {
+            push(true, index);
+        } else {
+            push(false, index);
+        }
+        if(lowerSize > upperSize + 1) {
+            push(false, pop(true));
+        } else if(upperSize > lowerSize) {
+            push(true, pop(false));
+        }
+        next = next == values.length - 1 ? 0 : next + 1;
+        return getMedian();
+    }
+
+    /**
+     * returns the median of the measurements currently in the window
+     * @return the median
+     */
+    public double getMedian() {
+        if(size == 0) return 0;
+        if(lowerSize > upperSize) return values[lower[0]];
+        return (values[lower[0]] + values[upper[0]]) / 2;
+    }
+
+    /**
+     * returns the amount of measurements currently in the window
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * returns a measurement currently in the window, in no particular order
+     */
+    double get(int i) {
+        return values[i];
+    }
+
+    private void remove(int index) {
+        boolean fromLower = inLower[index];
+        int[] heap = fromLower ? lower : upper;
+        int position = positions[index];
+        int last = fromLower ? --lowerSize : --upperSize;
+        if(position != last) {
+            int moved = heap[last];
+            place(fromLower, moved, position);
+            siftUp(fromLower, position);
+            siftDown(fromLower, positions[moved]);
+        }
+        if(lowerSize < upperSize) {
+            push(true, pop(false));
+        } else if(lowerSize > upperSize + 1) {
+            push(false, pop(true));
+        }
+    }
+
+    private void push(boolean toLower, int index) {
+        int position = toLower ? lowerSize++ : upperSize++;
+        inLower[index] = toLower;
+        place(toLower, index, position);
+        siftUp(toLower, position);
+    }
+
+    private int pop(boolean fromLower) {
+        int[] heap = fromLower ? lower : upper;
+        int top = heap[0];
+        int last = fromLower ? --lowerSize : --upperSize;
+        if(last > 0) {
+            place(fromLower, heap[last], 0);
+            siftDown(fromLower, 0);
+        }
+        return top;
+    }
+
+    private void siftUp(boolean isLower, int position) {
+        int[] heap = isLower ? lower : upper;
+        while(position > 0) {
+            int parent = (position - 1) >>> 1;
+            if(!above(isLower, heap[position], heap[parent])) return;
+            swap(isLower, position, parent);
+            position = parent;
+        }
+    }
+
+    private void siftDown(boolean isLower, int position) {
+        int[] heap = isLower ? lower : upper;
+        int size = isLower ? lowerSize : upperSize;
+        while(true) {
+            int child = 2 * position + 1;
+            if(child >= size) return;
+            if(child + 1 < size && above(isLower, heap[child + 1], heap[child])) child++;
+            if(!above(isLower, heap[child], heap[position])) return;
+            swap(isLower, position, child);
+            position = child;
+        }
+    }
+
+    /**
+     * returns whether the first index belongs above the second in the given heap
+     */
+    private boolean above(boolean isLower, int first, int second) {
+        return isLower ? values[first] > values[second] : values[first] < values[second];
+    }
+
+    private void swap(boolean isLower, int a, int b) {
+        int[] heap = isLower ? lower : upper;
+        int index = heap[a];
+        place(isLower, heap[b], a);
+        place(isLower, index, b);
+    }
+
+    private void place(boolean isLower, int index, int position) {
+        (isLower ? lower : upper)[position] = index;
+        positions[index] = position;
+    }
+}
@@ -1,59 +1,204 @@
 package com.spikes2212.dashboard;
 
+import com.spikes2212.util.VersionedDoubleSupplier;
 import edu.wpi.first.networktables.*;
 import edu.wpi.first.wpilibj.Sendable;
 import edu.wpi.first.wpilibj.smartdashboard.SendableRegistry;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 import java.util.function.Supplier;
 
 public class RootNamespace implements Namespace {
     private final Map<String, Sendable> TABLES_TO_DATA = new HashMap<>();
 
+    /**
+     * A value which is sent to the dashboard on every {@link #update()}. The field's entry is looked up once,
+     * when it is added.
+     */
+    private abstract static class Field {
+        protected final String key;
+        protected final NetworkTableEntry entry;
+
+        protected Field(String key, NetworkTableEntry entry) {
+            this.key = key;
+            this.entry = entry;
+        }
+
+        abstract void update();
+    }
+
+    private static class StringField extends Field {
+        private final Supplier<String> value;
+
+        StringField(String key, NetworkTableEntry entry, Supplier<String> value) {
+            super(key, entry);
+            this.value = value;
+        }
+
+        @Override
+        void update() {
+            entry.setString(value.get());
+        }
+    }
+
+    private static class NumberField extends Field {
+        private final Supplier<? extends Number> value;
+
+        NumberField(String key, NetworkTableEntry entry, Supplier<? extends Number> value) {
+            super(key, entry);
+            this.value = value;
+        }
+
+        @Override
+        void update() {
+            entry.setNumber(value.get());
+        }
+    }
+
+    private static class BooleanField extends Field {
+        private final Supplier<Boolean> value;
+
+        BooleanField(String key, NetworkTableEntry entry, Supplier<Boolean> value) {
+            super(key, entry);
+            this.value = value;
+        }
+
+        @Override
+        void update() {
+            entry.setBoolean(value.get());
+        }
+    }
+
+    private static final int INITIAL_FIELD_CAPACITY = 16;
+
     protected String name;
-    private Map<String, Supplier<String>> stringFields;
-    private Map<String, Supplier<? extends Number>> numberFields;
-    private Map<String, Supplier<Boolean>> booleanFields;
+
+    /**
+     * The fields, in the first {@code fieldCount} cells, and each field's index by its key. The indices are
+     * only used when fields are added or removed, so {@link #update()} doesn't look anything up.
+     */
+    private Field[] fields;
+    private int fieldCount;
+    private Map<String, Integer> fieldIndices;
     private NetworkTable table;
 
     public RootNamespace(String name) {
         this.name = name;
         NetworkTableInstance inst = NetworkTableInstance.getDefault();
         this.table = inst.getTable(this.name);
-        stringFields = new HashMap<>();
-        numberFields = new HashMap<>();
-        booleanFields = new HashMap<>();
+        fields = new Field[INITIAL_FIELD_CAPACITY];
+        fieldCount = 0;
+        fieldIndices = new HashMap<>();
     }
 
-    @Override
-    public Supplier<Double> addConstantDouble(String name, double value) {
+    /**
+     * The events after which a constant's value is updated. Constants are kept up to date by listeners,
+     * so getting them doesn't access NetworkTables.
+     */
+    private static final int CONSTANT_LISTENER_FLAGS = EntryListenerFlags.kNew | EntryListenerFlags.kUpdate |
+            EntryListenerFlags.kLocal;
+
+    /**
+     * A double constant, whose version changes whenever its entry is updated, so that settings using it
+     * don't have to poll it.
+     */
+    private static class DoubleConstant implements Supplier<Double>, VersionedDoubleSupplier {
+        private volatile double value;
+        private volatile int version = 0;
+
+        DoubleConstant(double value) {
+            this.value = value;
+        }
+
+        /**
+         * Changes the value. Only called by the entry's listener, so there is a single writer.
+         */
+        void set(double value) {
+            if (Double.compare(this.value, value) != 0) {
+                this.value = value;
+                version++;
+            }
+        }
+
+        @Override
+        public double getAsDouble() {
+            return value;
+        }
+
+        @Override
+        public Double get() {
+            return value;
+        }
+
+        @Override
+        public int getVersion() {
+            return version;
+        }
+    }
+
+    /**
+     * The constants which were already added, so that adding one again reuses its supplier and listener.
+     */
+    private final Map<String, DoubleConstant> doubleConstants = new HashMap<>();
+    private final Map<String, Supplier<Integer>> intConstants = new HashMap<>();
+    private final Map<String, Supplier<String>> stringConstants = new HashMap<>();
+
+    private NetworkTableEntry constantEntry(String name, Consumer<NetworkTableEntry> setDefault) {
         NetworkTableEntry entry = table.getEntry(name);
         if (! table.containsKey(name)) {
-            entry.setDouble(value);
+            setDefault.accept(entry);
             entry.setPersistent();
         }
-        return () -> entry.getDouble(value);
+        return entry;
     }
 
     @Override
-    public Supplier<Integer> addConstantInt(String name, int value) {
-        NetworkTableEntry entry = table.getEntry(name);
-        if (! table.containsKey(name)) {
-            entry.setNumber(value);
-            entry.setPersistent();
+    public synchronized Supplier<Double> addConstantDouble(String name, double value) {
+        DoubleConstant constant = doubleConstants.get(name);
+        if (constant == null) {
+            NetworkTableEntry entry = constantEntry(name, e -> e.setDouble(value));
+            DoubleConstant current = new DoubleConstant(entry.getDouble(value));
+            entry.addListener(notification -> {
+                if (notification.value.isDouble()) current.set(notification.value.getDouble());
+            }, CONSTANT_LISTENER_FLAGS);
+            doubleConstants.put(name, current);
+            constant = current;
         }
-        return () -> entry.getNumber(value).intValue();
+        return constant;
     }
 
     @Override
-    public Supplier<String> addConstantString(String name, String value) {
-        NetworkTableEntry entry = table.getEntry(name);
-        if (! table.containsKey(name)) {
-            entry.setString(value);
-            entry.setPersistent();
+    public synchronized Supplier<Integer> addConstantInt(String name, int value) {
+        Supplier<Integer> constant = intConstants.get(name);
+        if (constant == null) {
+            NetworkTableEntry entry = constantEntry(name, e -> e.setNumber(value));
+            AtomicReference<Integer> current = new AtomicReference<>(entry.getNumber(value).intValue());
+            entry.addListener(notification -> {
+                if (notification.value.isDouble()) current.set((int) notification.value.getDouble());
+            }, CONSTANT_LISTENER_FLAGS);
+            constant = current::get;
+            intConstants.put(name, constant);
+        }
+        return constant;
+    }
+
+    @Override
+    public synchronized Supplier<String> addConstantString(String name, String value) {
+        Supplier<String> constant = stringConstants.get(name);
+        if (constant == null) {
+            NetworkTableEntry entry = constantEntry(name, e -> e.setString(value));
+            AtomicReference<String> current = new AtomicReference<>(entry.getString(value));
+            entry.addListener(notification -> {
+                if (notification.value.isString()) current.set(notification.value.getString());
+            }, CONSTANT_LISTENER_FLAGS);
+            constant = current::get;
+            stringConstants.put(name, constant);
         }
-        return () -> entry.getString(value);
+        return constant;
     }
 
     @Override
@@ -81,10 +226,9 @@ public class RootNamespace implements Namespace {
 
     @Override
     public void putString(String key, Supplier<String> value) {
-        remove(key);
         NetworkTableEntry entry = this.table.getEntry(key);
         entry.setString(value.get());
-        stringFields.put(key, value);
+        addField(key, new StringField(key, entry, value));
     }
 
     @Override
@@ -96,10 +240,9 @@ public class RootNamespace implements Namespace {
 
     @Override
     public void putNumber(String key, Supplier<? extends Number> value) {
-        remove(key);
         NetworkTableEntry entry = this.table.getEntry(key);
         entry.setNumber(value.get());
-        numberFields.put(key, value);
+        addField(key, new NumberField(key, entry, value));
     }
 
     @Override
@@ -111,10 +254,9 @@ public class RootNamespace implements Namespace {
 
     @Override
     public void putBoolean(String key, Supplier<Boolean> value) {
-        remove(key);
         NetworkTableEntry entry = this.table.getEntry(key);
         entry.setBoolean(value.get());
-        booleanFields.put(key, value);
+        addField(key, new BooleanField(key, entry, value));
     }
 
     @Override
@@ -124,36 +266,33 @@ public class RootNamespace implements Namespace {
         return value.getBoolean();
     }
 
-    public void remove(String name) {
-        stringFields.remove(name);
-        numberFields.remove(name);
-        booleanFields.remove(name);
-    }
-
-    private void updateString() {
-        for (Map.Entry<String, Supplier<String>> map : stringFields.entrySet()) {
-            NetworkTableEntry entry = this.table.getEntry(map.getKey());
-            entry.setString(map.getValue().get());
+    private void addField(String key, Field field) {
+        Integer index = fieldIndices.get(key);
+        if (index != null) {
+            fields[index] = field;
+            return;
         }
-    }
-
-    private void updateNumber() {
-        for (Map.Entry<String, Supplier<? extends Number>> map : numberFields.entrySet()) {
-            NetworkTableEntry entry = this.table.getEntry(map.getKey());
-            entry.setNumber(map.getValue().get());
+        if (fieldCount == fields.length) {
+            fields = Arrays.copyOf(fields, fields.length * 2);
         }
+        fieldIndices.put(key, fieldCount);
+        fields[fieldCount++] = field;
     }
 
-    private void updateBoolean() {
-        for (Map.Entry<String, Supplier<Boolean>> map : booleanFields.entrySet()) {
-            NetworkTableEntry entry = this.table.getEntry(map.getKey());
-            entry.setBoolean(map.getValue().get());
+    public void remove(String name) {
+        Integer index = fieldIndices.remove(name);
+        if (index == null) return;
+        fieldCount--;
+        if (index != fieldCount) {
+            fields[index] = fields[fieldCount];
+            fieldIndices.put(fields[index].key, index);
         }
+        fields[fieldCount] = null;
     }
 
     public void update() {
-        updateBoolean();
-        updateNumber();
-        updateString();
+        for (int i = 0; i < fieldCount; i++) {
+            fields[i].update();
+        }
     }
 }
@@ -1,10 +1,14 @@
 package com.spikes2212.path;
 
+import com.spikes2212.util.Suppliers;
+import edu.wpi.first.wpilibj.Notifier;
+import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj.geometry.Pose2d;
 import edu.wpi.first.wpilibj.geometry.Rotation2d;
 import edu.wpi.first.wpilibj.geometry.Translation2d;
 import edu.wpi.first.wpilibj.geometry.Twist2d;
 
+import java.util.function.DoubleSupplier;
 import java.util.function.Supplier;
 
 /**
@@ -14,13 +18,31 @@ import java.util.function.Supplier;
  *
  * a class which uses encoders to find the progress of a robot between discrete
  * times
+ * <p>
+ * The position can also be calculated on a separate thread at a higher rate than the main robot loop,
+ * using {@link #startThread(double)}. The pose can then be read from any thread, and every calculated pose
+ * is kept in a {@link PoseHistory}.
  */
 public class OdometryHandler {
 
-    private Supplier<Double> leftPosition, rightPosition;
-    private Supplier<Double> yaw;
+    /**
+     * The time the history kept by {@link #startThread(double)} covers, in seconds.
+     */
+    public static final double DEFAULT_HISTORY_TIME = 1;
+
+    private DoubleSupplier leftPosition, rightPosition;
+    private DoubleSupplier yaw;
+    private DoubleSupplier time;
     private double lastLeftPosition = 0, lastRightPosition = 0, lastYaw = 0;
-    private Pose2d pose;
+    private volatile Pose2d pose;
+
+    /**
+     * The history every calculated pose is added to, or {@code null} if the history is not kept.
+     */
+    private volatile PoseHistory history;
+
+    private Notifier notifier;
+    private volatile boolean threadRunning = false;
 
     /**
      * creates a new {@link OdometryHandler} object, with given parameters
@@ -29,19 +51,62 @@ public class OdometryHandler {
      * @param angleSupplier the angle supplier
      * @param x the initial x coordinate
      * @param y the initial y coordinate
+     * @param time the supplier of the current time in seconds, used to timestamp the pose history
      */
-    public OdometryHandler(Supplier<Double> leftPosition, Supplier<Double> rightPosition, Supplier<Double> angleSupplier
-            , double x, double y) {
+    public OdometryHandler(DoubleSupplier leftPosition, DoubleSupplier rightPosition, DoubleSupplier angleSupplier,
+                           double x, double y, DoubleSupplier time) {
         this.leftPosition = leftPosition;
         this.rightPosition = rightPosition;
         this.yaw = angleSupplier;
-        pose = new Pose2d(new Translation2d(x, y), Rotation2d.fromDegrees(yaw.get()));
+        this.time = time;
+        pose = new Pose2d(new Translation2d(x, y), Rotation2d.fromDegrees(yaw.getAsDouble()));
+    }
+
+    /**
+     * creates a new {@link OdometryHandler} object, with given parameters
+     * @param leftPosition  the left position supplier
+     * @param rightPosition the right position supplier
+     * @param angleSupplier the angle supplier
+     * @param x the initial x coordinate
+     * @param y the initial y coordinate
+     */
+    public OdometryHandler(DoubleSupplier leftPosition, DoubleSupplier rightPosition, DoubleSupplier angleSupplier,
+                           double x, double y) {
+        this(leftPosition, rightPosition, angleSupplier, x, y, Timer::getFPGATimestamp);
+    }
+
+    /**
+     * creates a new {@link OdometryHandler} object, with given parameters
+     * @param leftPosition  the left position supplier
+     * @param rightPosition the right position supplier
+     * @param angleSupplier the angle supplier
+     * @param x the initial x coordinate
+     * @param y the initial y coordinate
+     * @param time the supplier of the current time in seconds, used to timestamp the pose history
+     */
+    public OdometryHandler(Supplier<Double> leftPosition, Supplier<Double> rightPosition, Supplier<Double> angleSupplier
+            , double x, double y, Supplier<Double> time) {
+        this(Suppliers.unbox(leftPosition), Suppliers.unbox(rightPosition), Suppliers.unbox(angleSupplier), x, y,
+                Suppliers.unbox(time));
+    }
+
+    /**
+     * creates a new {@link OdometryHandler} object, with given parameters
+     * @param leftPosition  the left position supplier
+     * @param rightPosition the right position supplier
+     * @param angleSupplier the angle supplier
+     * @param x the initial x coordinate
+     * @param y the initial y coordinate
+     */
+    public OdometryHandler(Supplier<Double> leftPosition, Supplier<Double> rightPosition, Supplier<Double> angleSupplier
+            , double x, double y) {
+        this(Suppliers.unbox(leftPosition), Suppliers.unbox(rightPosition), Suppliers.unbox(angleSupplier), x, y);
     }
 
-    public void calculate() {
-        double leftPosition = this.leftPosition.get();
-        double rightPosition = this.rightPosition.get();
-        double yaw = this.yaw.get();
+    public synchronized void calculate() {
+        double leftPosition = this.leftPosition.getAsDouble();
+        double rightPosition = this.rightPosition.getAsDouble();
+        double yaw = this.yaw.getAsDouble();
         double deltaLeftDistance = leftPosition - lastLeftPosition;
         double deltaRightDistance = rightPosition - lastRightPosition;
         double deltaYaw = yaw - lastYaw;
@@ -58,6 +123,116 @@ public class OdometryHandler {
                 new Twist2d(averageDeltaDistance, 0.0, angle.getRadians()));
 
         pose = new Pose2d(newPose.getTranslation(), Rotation2d.fromDegrees(yaw));
+        onCalculate(averageDeltaDistance, yaw);
+        if(history != null) history.add(time.getAsDouble(), getX(), getY(), yaw);
+    }
+
+    /**
+     * Called at the end of every {@link #calculate()}, after the pose was updated, while holding the
+     * handler's lock. Does nothing by default.
+     *
+     * @param distance the distance driven since the last calculation
+     * @param yaw      the robot's current yaw, in degrees
+     */
+    protected void onCalculate(double distance, double yaw) {
+    }
+
+    /**
+     * Replaces the robot's pose without resetting the encoder positions.
+     *
+     * @param pose the new pose
+     */
+    protected void setPose(Pose2d pose) {
+        this.pose = pose;
+    }
+
+    /**
+     * returns the current time, according to the handler's time supplier
+     * @return the current time, in seconds
+     */
+    protected double getTime() {
+        return time.getAsDouble();
+    }
+
+    /**
+     * Starts keeping every calculated pose in a {@link PoseHistory}, replacing any existing history.
+     * Should not be called while the odometry thread is running.
+     *
+     * @param capacity the maximum amount of poses kept
+     * @return the new history
+     */
+    public synchronized PoseHistory enableHistory(int capacity) {
+        history = new PoseHistory(capacity);
+        return history;
+    }
+
+    /**
+     * returns the history of calculated poses
+     * @return the history, or {@code null} if it is not kept
+     */
+    public PoseHistory getHistory() {
+        return history;
+    }
+
+    /**
+     * returns the robot's pose at the given time, interpolated from the pose history.
+     * Useful for matching vision measurements to where the robot was when the image was captured.
+     * @param timestamp the time, in seconds, in the same time base as the history's time supplier
+     * @return the pose at the given time, or {@code null} if no history was kept yet
+     */
+    public Pose2d getPoseAt(double timestamp) {
+        PoseHistory history = this.history;
+        return history == null ? null : history.getPoseAt(timestamp);
+    }
+
+    /**
+     * Starts calculating the position on a separate thread every {@code period} seconds.
+     * While the thread is running, {@link #calculate()} should not be called by anything else.
+     *
+     * @param period          the time between two calculations, in seconds
+     * @param historyCapacity the maximum amount of poses kept in the history
+     */
+    public synchronized void startThread(double period, int historyCapacity) {
+        if(threadRunning) return;
+        if(history == null || history.getCapacity() != historyCapacity) enableHistory(historyCapacity);
+        if(notifier == null) {
+            notifier = new Notifier(this::calculate);
+            notifier.setName("OdometryHandler");
+        }
+        notifier.startPeriodic(period);
+        threadRunning = true;
+    }
+
+    /**
+     * Starts calculating the position on a separate thread every {@code period} seconds, keeping a history
+     * of the last {@link #DEFAULT_HISTORY_TIME} seconds.
+     * While the thread is running, {@link #calculate()} should not be called by anything else.
+     *
+     * @param period the time between two calculations, in seconds
+     */
+    public void startThread(double period) {
+        startThread(period, (int)Math.ceil(DEFAULT_HISTORY_TIME / period) + 1);
+    }
+
+    /**
+     * Stops the odometry thread. The history is kept.
+     */
+    public synchronized void stopThread() {
+        if(notifier != null) notifier.stop();
+        threadRunning = false;
+    }
+
+    public boolean isThreadRunning() {
+        return threadRunning;
+    }
+
+    /**
+     * returns the robot's current pose. Unlike calling the separate getters, the returned pose is consistent
+     * even while the position is calculated on another thread.
+     * @return the robot's current pose
+     */
+    public Pose2d getPose() {
+        return pose;
     }
     /**
      * returns the robot's current x coordinate
@@ -80,7 +255,7 @@ public class OdometryHandler {
      * @return the robot's current angle
      */
     public double getYaw() {
-        return yaw.get();
+        return yaw.getAsDouble();
     }
 
     /**
@@ -91,9 +266,10 @@ public class OdometryHandler {
         return new Waypoint(getY(), getX());
     }
 
-    public void set(double x, double y) {
-        this.pose = new Pose2d(new Translation2d(x, y), new Rotation2d(yaw.get()));
+    public synchronized void set(double x, double y) {
+        this.pose = new Pose2d(new Translation2d(x, y), Rotation2d.fromDegrees(yaw.getAsDouble()));
         this.lastLeftPosition = 0;
         this.lastRightPosition = 0;
+        if(history != null) history.clear();
     }
 }
\ No newline at end of file
@@ -0,0 +1,158 @@
+package com.spikes2212.path;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * This class generates a set of named paths concurrently on a bounded {@link ForkJoinPool},
+ * so a whole autonomous path library can be generated without blocking the main thread.
+ * <p>
+ * Add the paths using {@link #add}, then call {@link #generate()} and keep the returned futures.
+ * The robot can keep running while the paths are being generated.
+ */
+public class PathBatch implements AutoCloseable {
+
+    private static class Request {
+        private final List<Waypoint> path;
+        private final double spacing, smoothWeight, tolerance, maxVelocity, turningConstant, maxAcceleration;
+        private final SmoothingMethod method;
+
+        private Request(List<Waypoint> path, double spacing, double smoothWeight, double tolerance,
+                        double maxVelocity, double turningConstant, double maxAcceleration, SmoothingMethod method) {
+            this.path = path;
+            this.spacing = spacing;
+            this.smoothWeight = smoothWeight;
+            this.tolerance = tolerance;
+            this.maxVelocity = maxVelocity;
+            this.turningConstant = turningConstant;
+            this.maxAcceleration = maxAcceleration;
+            this.method = method;
+        }
+    }
+
+    private final ForkJoinPool pool;
+
+    /**
+     * The cache to generate the paths through, or {@code null} to always generate them.
+     */
+    private final PathCache cache;
+
+    private final Map<String, Request> requests = new LinkedHashMap<>();
+    private final Map<String, CompletableFuture<PathBuffer>> futures = new ConcurrentHashMap<>();
+
+    /**
+     * The time it took to generate each path, in seconds.
+     */
+    private final Map<String, Double> generationTimes = new ConcurrentHashMap<>();
+
+    /**
+     * creates a new {@link PathBatch}
+     * @param parallelism the maximum amount of paths generated at once
+     * @param cache the cache to generate the paths through, or {@code null}
+     */
+    public PathBatch(int parallelism, PathCache cache) {
+        this.pool = new ForkJoinPool(parallelism);
+        this.cache = cache;
+    }
+
+    /**
+     * creates a new {@link PathBatch} which leaves one processor free for the main robot thread
+     */
+    public PathBatch() {
+        this(Math.max(1, Runtime.getRuntime().availableProcessors() - 1), null);
+    }
+
+    /**
+     * Adds a path to the batch, see {@link Paths#generate} for the parameters.
+     *
+     * @param name the name of the path
+     * @return this {@link PathBatch}
+     */
+    public PathBatch add(String name, List<Waypoint> path, double spacing, double smoothWeight, double tolerance,
+                         double maxVelocity, double turningConstant, double maxAcceleration,
+                         SmoothingMethod method) {
+        requests.put(name, new Request(path, spacing, smoothWeight, tolerance, maxVelocity, turningConstant,
+                maxAcceleration, method));
+        return this;
+    }
+
+    /**
+     * Adds a path to the batch, see {@link Paths#generate} for the parameters.
+     *
+     * @param name the name of the path
+     * @return this {@link PathBatch}
+     */
+    public PathBatch add(String name, double spacing, double smoothWeight, double tolerance, double maxVelocity,
+                         double turningConstant, double maxAcceleration, Waypoint... path) {
+        return add(name, Arrays.asList(path), spacing, smoothWeight, tolerance, maxVelocity, turningConstant,
+                maxAcceleration, SmoothingMethod.ITERATIVE);
+    }
+
+    /**
+     * Starts generating every path which was added and has not been generated yet.
+     *
+     * @return the futures of all of the paths in the batch, by name
+     */
+    public Map<String, CompletableFuture<PathBuffer>> generate() {
+        for(Map.Entry<String, Request> entry : requests.entrySet()) {
+            String name = entry.getKey();
+            Request request = entry.getValue();
+            futures.computeIfAbsent(name, n -> CompletableFuture.supplyAsync(() -> generate(n, request), pool));
+        }
+        return Collections.unmodifiableMap(futures);
+    }
+
+    private PathBuffer generate(String name, Request r) {
+        long startTime = System.nanoTime();
+        PathBuffer path = cache != null ?
+                cache.generate(r.path, r.spacing, r.smoothWeight, r.tolerance, r.maxVelocity, r.turningConstant,
+                        r.maxAcceleration, r.method) :
+                Paths.generate(new PathBuffer(), r.path, r.spacing, r.smoothWeight, r.tolerance, r.maxVelocity,
+                        r.turningConstant, r.maxAcceleration, r.method, null);
+        generationTimes.put(name, (System.nanoTime() - startTime) / 1e9);
+        return path;
+    }
+
+    /**
+     * returns the future of the path with the given name, or {@code null} if it was not generated yet
+     * @param name the name of the path
+     * @return the future of the path
+     */
+    public CompletableFuture<PathBuffer> get(String name) {
+        return futures.get(name);
+    }
+
+    /**
+     * returns the time it took to generate the path with the given name
+     * @param name the name of the path
+     * @return the generation time in seconds, or {@code NaN} if the path was not generated yet
+     */
+    public double getGenerationTime(String name) {
+        return generationTimes.getOrDefault(name, Double.NaN);
+    }
+
+    /**
+     * Cancels every path which has not finished generating.
+     * Paths which have not started yet will not be generated.
+     */
+    public void cancel() {
+        for(CompletableFuture<PathBuffer> future : futures.values()) {
+            future.cancel(false);
+        }
+    }
+
+    /**
+     * Cancels the remaining paths and shuts down the generation threads.
+     */
+    @Override
+    public void close() {
+        cancel();
+        pool.shutdownNow();
+    }
+}
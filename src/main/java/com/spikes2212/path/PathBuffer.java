@@ -0,0 +1,251 @@
+package com.spikes2212.path;
+
+import java.nio.DoubleBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * This class represents a path as parallel primitive arrays, holding the same fields as {@link Waypoint}.
+ * It is an allocation free alternative to a {@link List} of {@link Waypoint}s, which can be
+ * generated using {@link Paths#generate(PathBuffer, List, double, double, double, double, double, double)}
+ * and followed using {@link PurePursuitController}.
+ * <p>
+ * Indices given to the getters must be smaller than {@link #size()}.
+ */
+public class PathBuffer {
+
+    /**
+     * The x coordinates.
+     */
+    private double[] x;
+
+    /**
+     * The y coordinates.
+     */
+    private double[] y;
+
+    /**
+     * The velocities at the points.
+     */
+    private double[] v;
+
+    /**
+     * The distances from the origin of the path along the path.
+     */
+    private double[] d;
+
+    /**
+     * The curvatures of the path at the points.
+     */
+    private double[] curvature;
+
+    /**
+     * The amount of points in the path.
+     */
+    private int size;
+
+    public PathBuffer(int capacity) {
+        x = new double[capacity];
+        y = new double[capacity];
+        v = new double[capacity];
+        d = new double[capacity];
+        curvature = new double[capacity];
+    }
+
+    public PathBuffer() {
+        this(16);
+    }
+
+    /**
+     * creates a new {@link PathBuffer} holding a copy of the given path
+     * @param path the path to copy
+     */
+    public PathBuffer(List<Waypoint> path) {
+        this(path.size());
+        for(Waypoint w : path) {
+            add(w.getX(), w.getY(), w.getV(), w.getD(), w.getCurvature());
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public double getX(int index) {
+        return x[index];
+    }
+
+    public double getY(int index) {
+        return y[index];
+    }
+
+    public double getV(int index) {
+        return v[index];
+    }
+
+    void setV(int index, double v) {
+        this.v[index] = v;
+    }
+
+    public double getD(int index) {
+        return d[index];
+    }
+
+    void setD(int index, double distance) {
+        this.d[index] = distance;
+    }
+
+    public double getCurvature(int index) {
+        return curvature[index];
+    }
+
+    void setCurvature(int index, double curvature) {
+        this.curvature[index] = curvature;
+    }
+
+    /**
+     * returns the internal x coordinates array, which may be longer than {@link #size()}
+     */
+    double[] xs() {
+        return x;
+    }
+
+    /**
+     * returns the internal y coordinates array, which may be longer than {@link #size()}
+     */
+    double[] ys() {
+        return y;
+    }
+
+    void add(double x, double y) {
+        add(x, y, 0, 0, 0);
+    }
+
+    void add(double x, double y, double v, double d, double curvature) {
+        ensureCapacity(size + 1);
+        this.x[size] = x;
+        this.y[size] = y;
+        this.v[size] = v;
+        this.d[size] = d;
+        this.curvature[size] = curvature;
+        size++;
+    }
+
+    void ensureCapacity(int capacity) {
+        if(capacity <= x.length) return;
+        int newCapacity = Math.max(capacity, x.length * 2);
+        x = Arrays.copyOf(x, newCapacity);
+        y = Arrays.copyOf(y, newCapacity);
+        v = Arrays.copyOf(v, newCapacity);
+        d = Arrays.copyOf(d, newCapacity);
+        curvature = Arrays.copyOf(curvature, newCapacity);
+    }
+
+    /**
+     * Replaces the contents of the path with {@code count} points read column by column from the given buffer:
+     * all of the x coordinates, then the y coordinates, velocities, distances and curvatures.
+     */
+    void read(DoubleBuffer source, int count) {
+        size = 0;
+        ensureCapacity(count);
+        source.get(x, 0, count);
+        source.get(y, 0, count);
+        source.get(v, 0, count);
+        source.get(d, 0, count);
+        source.get(curvature, 0, count);
+        size = count;
+    }
+
+    /**
+     * Writes the path column by column into the given buffer, in the layout {@link #read} expects.
+     */
+    void write(DoubleBuffer target) {
+        target.put(x, 0, size);
+        target.put(y, 0, size);
+        target.put(v, 0, size);
+        target.put(d, 0, size);
+        target.put(curvature, 0, size);
+    }
+
+    /**
+     * Removes all of the points from the path, keeping the allocated memory so it can be reused.
+     */
+    public void clear() {
+        Arrays.fill(v, 0, size, 0);
+        Arrays.fill(d, 0, size, 0);
+        Arrays.fill(curvature, 0, size, 0);
+        size = 0;
+    }
+
+    /**
+     * returns the distance from the given coordinates to the point at the given index
+     * @param index the index of the point
+     * @param x the x coordinate
+     * @param y the y coordinate
+     * @return the distance between the point and the coordinates
+     */
+    public double distance(int index, double x, double y) {
+        double dx = this.x[index] - x;
+        double dy = this.y[index] - y;
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+
+    /**
+     * returns the distance between the points at the given indices
+     * @param first the index of the first point
+     * @param second the index of the second point
+     * @return the distance between the points
+     */
+    public double distance(int first, int second) {
+        return distance(first, x[second], y[second]);
+    }
+
+    /**
+     * returns the parameter of the projection of the given coordinates onto the segment starting at the given index,
+     * where 0 is the start of the segment and 1 is its end
+     */
+    double project(int segment, double x, double y) {
+        double segmentX = this.x[segment + 1] - this.x[segment];
+        double segmentY = this.y[segment + 1] - this.y[segment];
+        double lengthSquared = segmentX * segmentX + segmentY * segmentY;
+        if(lengthSquared == 0) return 0;
+        double t = ((x - this.x[segment]) * segmentX + (y - this.y[segment]) * segmentY) / lengthSquared;
+        return Math.max(0, Math.min(1, t));
+    }
+
+    /**
+     * returns the squared distance from the given coordinates to the point at parameter {@code t}
+     * along the segment starting at the given index
+     */
+    double distanceSquared(int segment, double t, double x, double y) {
+        double dx = this.x[segment] + t * (this.x[segment + 1] - this.x[segment]) - x;
+        double dy = this.y[segment] + t * (this.y[segment + 1] - this.y[segment]) - y;
+        return dx * dx + dy * dy;
+    }
+
+    /**
+     * returns the point at the given index as a new {@link Waypoint} instance
+     * @param index the index of the point
+     * @return the point at the given index
+     */
+    public Waypoint get(int index) {
+        Waypoint w = new Waypoint(x[index], y[index]);
+        w.setV(v[index]);
+        w.setD(d[index]);
+        w.setCurvature(curvature[index]);
+        return w;
+    }
+
+    /**
+     * returns the path as a new {@link List} of {@link Waypoint}s
+     * @return the path as a {@link List} of {@link Waypoint}s
+     */
+    public List<Waypoint> toList() {
+        List<Waypoint> path = new ArrayList<>(size);
+        for(int i = 0; i < size; i++) {
+            path.add(get(i));
+        }
+        return path;
+    }
+}
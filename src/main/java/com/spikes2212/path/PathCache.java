@@ -0,0 +1,218 @@
+package com.spikes2212.path;
+
+import com.spikes2212.dashboard.Namespace;
+import edu.wpi.first.wpilibj.Filesystem;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A persistent cache of paths generated by {@link Paths}.
+ * <p>
+ * Every path is keyed by a hash of its initial points and all of its generation parameters, and is saved
+ * in the binary path format. When the cache is asked for a path it already holds, generation is skipped entirely.
+ * Once the files take up more than the size limit, the least recently used paths are deleted.
+ */
+public class PathCache {
+
+    /**
+     * The version of the cache key. Should be changed whenever generation changes, in order to invalidate old paths.
+     */
+    private static final int KEY_VERSION = 1;
+
+    /**
+     * The directory the paths are saved in.
+     */
+    private final Path directory;
+
+    /**
+     * The maximum total size of the saved paths, in bytes.
+     */
+    private final long maxSize;
+
+    private final AtomicInteger hits = new AtomicInteger();
+    private final AtomicInteger misses = new AtomicInteger();
+
+    /**
+     * The total time spent generating paths on misses, in nanoseconds.
+     */
+    private final AtomicLong generationTime = new AtomicLong();
+
+    /**
+     * creates a new {@link PathCache} which saves paths in the given directory
+     * @param directory the directory to save paths in
+     * @param maxSize the maximum total size of the saved paths, in bytes
+     */
+    public PathCache(Path directory, long maxSize) {
+        this.directory = directory;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * creates a new {@link PathCache} which saves paths in the "path-cache" directory inside the
+     * operating directory
+     * @param maxSize the maximum total size of the saved paths, in bytes
+     */
+    public PathCache(long maxSize) {
+        this(Filesystem.getOperatingDirectory().toPath().resolve("path-cache"), maxSize);
+    }
+
+    /**
+     * Returns the path which {@link Paths#generate} would generate with the given parameters,
+     * loading it from the cache if possible.
+     *
+     * @param spacing         the distance between two path filled in between path given as parameters
+     * @param smoothWeight    how smooth to make the path, should be about 0.75 to 0.98
+     * @param tolerance       the smoothing tolerance
+     * @param maxVelocity     the robot's maximum velocity
+     * @param turningConstant speed constant at curves (the higher it is, the faster you turn)
+     * @param maxAcceleration the robot's maximum acceleration
+     * @param method          the algorithm used to smooth the path
+     * @param path            the initial points on the path
+     * @return the generated path
+     */
+    public PathBuffer generate(List<Waypoint> path, double spacing, double smoothWeight, double tolerance,
+                               double maxVelocity, double turningConstant, double maxAcceleration,
+                               SmoothingMethod method) {
+        Path file = directory.resolve(key(path, spacing, smoothWeight, tolerance, maxVelocity, turningConstant,
+                maxAcceleration, method) + Paths.BINARY_EXTENSION);
+        if(Files.exists(file)) {
+            try {
+                PathBuffer cached = Paths.loadFromBinary(file);
+                Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+                hits.incrementAndGet();
+                return cached;
+            } catch(IOException ioe) {
+                ioe.printStackTrace();
+            }
+        }
+        misses.incrementAndGet();
+        long startTime = System.nanoTime();
+        PathBuffer generated = Paths.generate(new PathBuffer(), path, spacing, smoothWeight, tolerance, maxVelocity,
+                turningConstant, maxAcceleration, method, null);
+        generationTime.addAndGet(System.nanoTime() - startTime);
+        try {
+            save(generated, file);
+        } catch(IOException ioe) {
+            ioe.printStackTrace();
+        }
+        return generated;
+    }
+
+    /**
+     * Returns the path which {@link Paths#generate} would generate with the given parameters,
+     * loading it from the cache if possible.
+     *
+     * @param spacing         the distance between two path filled in between path given as parameters
+     * @param smoothWeight    how smooth to make the path, should be about 0.75 to 0.98
+     * @param tolerance       the smoothing tolerance
+     * @param maxVelocity     the robot's maximum velocity
+     * @param turningConstant speed constant at curves (the higher it is, the faster you turn)
+     * @param maxAcceleration the robot's maximum acceleration
+     * @param path            the initial points on the path
+     * @return the generated path
+     */
+    public PathBuffer generate(double spacing, double smoothWeight, double tolerance, double maxVelocity,
+                               double turningConstant, double maxAcceleration, Waypoint... path) {
+        return generate(Arrays.asList(path), spacing, smoothWeight, tolerance, maxVelocity, turningConstant,
+                maxAcceleration, SmoothingMethod.ITERATIVE);
+    }
+
+    public int getHits() {
+        return hits.get();
+    }
+
+    public int getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * returns the total time spent generating paths which were not in the cache
+     * @return the total generation time, in seconds
+     */
+    public double getGenerationTime() {
+        return generationTime.get() / 1e9;
+    }
+
+    /**
+     * Adds the cache's counters to the given {@link Namespace}.
+     *
+     * @param namespace the namespace to add the counters to
+     */
+    public void configureDashboard(Namespace namespace) {
+        namespace.putNumber("hits", this::getHits);
+        namespace.putNumber("misses", this::getMisses);
+        namespace.putNumber("generation time", this::getGenerationTime);
+    }
+
+    private void save(PathBuffer path, Path file) throws IOException {
+        Files.createDirectories(directory);
+        Path temp = Files.createTempFile(directory, "path", ".tmp");
+        try {
+            Paths.exportToBinary(path, temp);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        evict();
+    }
+
+    /**
+     * Deletes the least recently used paths until the saved paths fit within the size limit.
+     */
+    private synchronized void evict() throws IOException {
+        List<Path> files = new ArrayList<>();
+        Map<Path, FileTime> lastUsed = new HashMap<>();
+        long totalSize = 0;
+        try(DirectoryStream<Path> paths = Files.newDirectoryStream(directory, "*" + Paths.BINARY_EXTENSION)) {
+            for(Path file : paths) {
+                files.add(file);
+                lastUsed.put(file, Files.getLastModifiedTime(file));
+                totalSize += Files.size(file);
+            }
+        }
+        files.sort(Comparator.comparing(lastUsed::get));
+        for(int i = 0; i < files.size() && totalSize > maxSize; i++) {
+            long size = Files.size(files.get(i));
+            if(Files.deleteIfExists(files.get(i))) totalSize -= size;
+        }
+    }
+
+    private static String key(List<Waypoint> path, double spacing, double smoothWeight, double tolerance,
+                              double maxVelocity, double turningConstant, double maxAcceleration,
+                              SmoothingMethod method) {
+        ByteBuffer buffer = ByteBuffer.allocate(2 * Integer.BYTES + (6 + 2 * path.size()) * Double.BYTES);
+        buffer.putInt(KEY_VERSION).putInt(method.ordinal());
+        buffer.putDouble(spacing).putDouble(smoothWeight).putDouble(tolerance).putDouble(maxVelocity)
+                .putDouble(turningConstant).putDouble(maxAcceleration);
+        for(Waypoint w : path) {
+            buffer.putDouble(w.getX()).putDouble(w.getY());
+        }
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch(NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        StringBuilder key = new StringBuilder();
+        for(byte b : digest.digest(buffer.array())) {
+            key.append(String.format("%02x", b));
+        }
+        return key.toString();
+    }
+}
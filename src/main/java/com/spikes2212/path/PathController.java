@@ -0,0 +1,55 @@
+package com.spikes2212.path;
+
+/**
+ * A controller which calculates the wheel speeds a tank drivetrain needs in order to follow a path.
+ *
+ * @see PurePursuitController
+ * @see TrajectoryController
+ */
+public interface PathController {
+
+    OdometryHandler getOdometryHandler();
+
+    /**
+     * Writes the target speeds for left and right into the given array.
+     * Left speed at index 0, right speed at index 1.
+     *
+     * @param speeds the array to write the speeds into, of at least two elements
+     * @return the given array
+     */
+    double[] getTargetSpeeds(double[] speeds);
+
+    /**
+     * Writes the target speeds for left and right into the given array, given the time which actually passed
+     * since the last call. Controllers which don't depend on the calling period ignore it.
+     *
+     * @param speeds the array to write the speeds into, of at least two elements
+     * @param dt     the time since the last call, in seconds
+     * @return the given array
+     */
+    default double[] getTargetSpeeds(double[] speeds, double dt) {
+        return getTargetSpeeds(speeds);
+    }
+
+    /**
+     * Returns the target speeds for left and right as a new array.
+     * Left speed at index 0, right speed at index 1.
+     *
+     * @return the target side speeds as an array
+     */
+    default double[] getTargetSpeeds() {
+        return getTargetSpeeds(new double[2]);
+    }
+
+    /**
+     * Resets the controller so it can be used again.
+     * This method should be called right before you start following a path.
+     */
+    void reset();
+
+    /**
+     * returns whether the controller has finished following the path.
+     * @return whether the controller has finished following the path
+     */
+    boolean done();
+}
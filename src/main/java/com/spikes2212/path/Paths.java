@@ -4,13 +4,123 @@ import edu.wpi.first.wpilibj.Filesystem;
 
 import java.io.BufferedWriter;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
+import java.util.zip.CRC32;
 
+/**
+ * This class generates, saves and loads paths for {@link PurePursuitController}.
+ * None of its methods keep any shared state, so they are safe to use from several threads at once
+ * (see {@link PathBatch}).
+ */
 public class Paths {
 
+    /**
+     * The file extension of paths saved in the binary format.
+     */
+    public static final String BINARY_EXTENSION = ".path";
+
+    /**
+     * The first four bytes of every binary path file ("SPTH" in little endian order).
+     */
+    private static final int BINARY_MAGIC = 0x48545053;
+
+    /**
+     * The current version of the binary path format.
+     */
+    private static final int BINARY_VERSION = 1;
+
+    /**
+     * The size of the binary header: magic, version, point count and the payload's CRC32 checksum.
+     */
+    private static final int BINARY_HEADER_SIZE = 4 * Integer.BYTES;
+
+    /**
+     * The amount of fields saved for every point.
+     */
+    private static final int BINARY_FIELDS = 5;
+
+    /**
+     * Generates a path into the given {@link PathBuffer}, without allocating an object per point.
+     * The buffer is cleared before the path is generated.
+     *
+     * @param target          the buffer to generate the path into
+     * @param spacing         the distance between two path filled in between path given as parameters
+     * @param smoothWeight    how smooth to make the path, should be about 0.75 to 0.98
+     * @param tolerance       the smoothing tolerance
+     * @param maxVelocity     the robot's maximum velocity
+     * @param turningConstant speed constant at curves (the higher it is, the faster you turn)
+     * @param maxAcceleration the robot's maximum acceleration
+     * @param method          the algorithm used to smooth the path
+     * @param stats           the object to record smoothing statistics into, or {@code null}
+     * @param path            the initial points on the path. Apart from the edges, non of the points are guaranteed
+     *                        to be on the final path
+     * @return the given buffer
+     */
+    public static PathBuffer generate(PathBuffer target, List<Waypoint> path, double spacing, double smoothWeight,
+                                      double tolerance, double maxVelocity, double turningConstant,
+                                      double maxAcceleration, SmoothingMethod method, SmoothingStats stats) {
+        target.clear();
+        fill(target, path, spacing);
+        if(target.size() == 0) return target;
+        smooth(target, smoothWeight, tolerance, method, stats);
+        calculateDistances(target);
+        calculateCurvatures(target);
+        calculateMaxVelocities(target, maxVelocity, turningConstant);
+        smoothVelocities(target, maxAcceleration);
+        return target;
+    }
+
+    /**
+     * Generates a path into the given {@link PathBuffer}, without allocating an object per point.
+     * The buffer is cleared before the path is generated.
+     *
+     * @param target          the buffer to generate the path into
+     * @param spacing         the distance between two path filled in between path given as parameters
+     * @param smoothWeight    how smooth to make the path, should be about 0.75 to 0.98
+     * @param tolerance       the smoothing tolerance
+     * @param maxVelocity     the robot's maximum velocity
+     * @param turningConstant speed constant at curves (the higher it is, the faster you turn)
+     * @param maxAcceleration the robot's maximum acceleration
+     * @param path            the initial points on the path. Apart from the edges, non of the points are guaranteed
+     *                        to be on the final path
+     * @return the given buffer
+     */
+    public static PathBuffer generate(PathBuffer target, List<Waypoint> path, double spacing, double smoothWeight,
+                                      double tolerance, double maxVelocity, double turningConstant,
+                                      double maxAcceleration) {
+        return generate(target, path, spacing, smoothWeight, tolerance, maxVelocity, turningConstant,
+                maxAcceleration, SmoothingMethod.ITERATIVE, null);
+    }
+
+    /**
+     * @param spacing         the distance between two path filled in between path given as parameters
+     * @param smoothWeight    how smooth to make the path, should be about 0.75 to 0.98
+     * @param tolerance       the smoothing tolerance
+     * @param maxVelocity     the robot's maximum velocity
+     * @param turningConstant speed constant at curves (the higher it is, the faster you turn)
+     * @param maxAcceleration the robot's maximum acceleration
+     * @param method          the algorithm used to smooth the path
+     * @param stats           the object to record smoothing statistics into, or {@code null}
+     * @param path            the initial points on the path. Apart from the edges, non of the points are guaranteed
+     *                        to be on the final path
+     * @return the generated path
+     */
+    public static List<Waypoint> generate(List<Waypoint> path, double spacing, double smoothWeight, double tolerance,
+                                          double maxVelocity, double turningConstant, double maxAcceleration,
+                                          SmoothingMethod method, SmoothingStats stats) {
+        return generate(new PathBuffer(), path, spacing, smoothWeight, tolerance, maxVelocity, turningConstant,
+                maxAcceleration, method, stats).toList();
+    }
+
     /**
      * @param spacing         the distance between two path filled in between path given as parameters
      * @param smoothWeight    how smooth to make the path, should be about 0.75 to 0.98
@@ -24,14 +134,27 @@ public class Paths {
      */
     public static List<Waypoint> generate(List<Waypoint> path, double spacing, double smoothWeight, double tolerance,
                                           double maxVelocity, double turningConstant, double maxAcceleration) {
-        List<Waypoint> points = new ArrayList<>(path);
-        fill(points, spacing);
-        smooth(points, smoothWeight, tolerance);
-        calculateDistances(points);
-        calculateCurvatures(points);
-        calculateMaxVelocities(points, maxVelocity, turningConstant);
-        smoothVelocities(points, maxAcceleration);
-        return points;
+        return generate(path, spacing, smoothWeight, tolerance, maxVelocity, turningConstant, maxAcceleration,
+                SmoothingMethod.ITERATIVE, null);
+    }
+
+    /**
+     * @param spacing         the distance between two path filled in between path given as parameters
+     * @param smoothWeight    how smooth to make the path, should be about 0.75 to 0.98
+     * @param tolerance       the smoothing tolerance
+     * @param maxVelocity     the robot's maximum velocity
+     * @param turningConstant speed constant at curves (the higher it is, the faster you turn)
+     * @param maxAcceleration the robot's maximum acceleration
+     * @param method          the algorithm used to smooth the path
+     * @param path            the initial points on the path. Apart from the edges, non of the points are guaranteed
+     *                        to be on the final path
+     * @return the generated path
+     */
+    public static List<Waypoint> generate(double spacing, double smoothWeight, double tolerance, double maxVelocity,
+                                          double turningConstant, double maxAcceleration, SmoothingMethod method,
+                                          Waypoint... path) {
+        return generate(Arrays.asList(path), spacing, smoothWeight, tolerance, maxVelocity, turningConstant,
+                maxAcceleration, method, null);
     }
 
     /**
@@ -51,86 +174,129 @@ public class Paths {
                 maxAcceleration);
     }
 
-    private static void fill(List<Waypoint> path, double spacing) {
+    private static void fill(PathBuffer target, List<Waypoint> path, double spacing) {
+        int count = path.size();
         for(int i = 0; i < path.size() - 1; i++) {
+            count += (int)(path.get(i).distance(path.get(i + 1)) / spacing);
+        }
+        target.ensureCapacity(count);
+        for(int i = 0; i < path.size(); i++) {
             Waypoint startPoint = path.get(i);
-            double length = path.get(i).distance(path.get(i + 1));
-            int pathThatFit = (int)(length / spacing);
-            Waypoint vector = new Waypoint((path.get(i + 1).getX() - path.get(i).getX()) * (spacing / length),
-                    (path.get(i + 1).getY() - path.get(i).getY()) * (spacing / length));
-            for(int j = 0; j < pathThatFit; j++, i++) {
-                path.add(i + 1, new Waypoint(
-                        startPoint.getX() + vector.getX() * (j + 1),
-                        startPoint.getY() + vector.getY() * (j + 1)
-                ));
+            target.add(startPoint.getX(), startPoint.getY());
+            if(i == path.size() - 1) break;
+            Waypoint endPoint = path.get(i + 1);
+            double length = startPoint.distance(endPoint);
+            int pointsThatFit = (int)(length / spacing);
+            double vectorX = (endPoint.getX() - startPoint.getX()) * (spacing / length);
+            double vectorY = (endPoint.getY() - startPoint.getY()) * (spacing / length);
+            for(int j = 0; j < pointsThatFit; j++) {
+                target.add(startPoint.getX() + vectorX * (j + 1), startPoint.getY() + vectorY * (j + 1));
             }
         }
     }
 
-    private static void smooth(List<Waypoint> path, double smoothWeight, double tolerance) {
+    private static void smooth(PathBuffer path, double smoothWeight, double tolerance, SmoothingMethod method,
+                               SmoothingStats stats) {
+        long startTime = System.nanoTime();
+        int n = path.size();
+        double[] x = path.xs(), y = path.ys();
+        double[] ogX = Arrays.copyOf(x, n), ogY = Arrays.copyOf(y, n);
+        int iterations = method == SmoothingMethod.DIRECT ? smoothDirect(x, y, ogX, ogY, n, smoothWeight) :
+                smoothIterative(x, y, ogX, ogY, n, smoothWeight, tolerance);
+        if(stats != null) stats.set(method, iterations, (System.nanoTime() - startTime) / 1e9);
+    }
+
+    private static int smoothIterative(double[] x, double[] y, double[] ogX, double[] ogY, int n,
+                                       double smoothWeight, double tolerance) {
         double dataWeight = 1 - smoothWeight;
-        double[][] newPath = new double[path.size()][2];
-        for(int i = 0; i < path.size(); i++) {
-            newPath[i] = path.get(i).toArray();
-        }
-        double[][] ogPath = Arrays.copyOf(newPath, newPath.length);
         double change = tolerance;
+        int iterations = 0;
         while(change >= tolerance) {
             change = 0;
-            for(int i = 1; i < newPath.length - 1; i++) {
-                for(int j = 0; j < newPath[i].length; j++) {
-                    double aux = newPath[i][j];
-                    newPath[i][j] += dataWeight * (ogPath[i][j] - newPath[i][j])
-                            + smoothWeight * (newPath[i - 1][j] + newPath[i + 1][j] - 2 * newPath[i][j]);
-                    change += Math.abs(aux - newPath[i][j]);
-                }
+            iterations++;
+            for(int i = 1; i < n - 1; i++) {
+                double aux = x[i];
+                x[i] += dataWeight * (ogX[i] - x[i]) + smoothWeight * (x[i - 1] + x[i + 1] - 2 * x[i]);
+                change += Math.abs(aux - x[i]);
+                aux = y[i];
+                y[i] += dataWeight * (ogY[i] - y[i]) + smoothWeight * (y[i - 1] + y[i + 1] - 2 * y[i]);
+                change += Math.abs(aux - y[i]);
             }
         }
+        return iterations;
+    }
+
+    /**
+     * Solves the fixed point of {@link #smoothIterative} directly. For every inner point:
+     * {@code -smoothWeight * p[i - 1] + (dataWeight + 2 * smoothWeight) * p[i] - smoothWeight * p[i + 1]
+     * = dataWeight * og[i]}, while the edges stay in place. The system is tridiagonal, so it is solved
+     * using the Thomas algorithm.
+     */
+    private static int smoothDirect(double[] x, double[] y, double[] ogX, double[] ogY, int n, double smoothWeight) {
+        if(n < 3) return 0;
+        double[] c = new double[n];
+        double[] d = new double[n];
+        solveSmoothing(x, ogX, n, smoothWeight, c, d);
+        solveSmoothing(y, ogY, n, smoothWeight, c, d);
+        return 1;
+    }
 
-        for(int i = 0; i < newPath.length; i++) {
-            path.set(i, new Waypoint(newPath[i][0], newPath[i][1]));
+    private static void solveSmoothing(double[] p, double[] og, int n, double smoothWeight, double[] c, double[] d) {
+        double dataWeight = 1 - smoothWeight;
+        double diagonal = dataWeight + 2 * smoothWeight;
+        for(int i = 1; i < n - 1; i++) {
+            double rhs = dataWeight * og[i];
+            if(i == 1) rhs += smoothWeight * og[0];
+            if(i == n - 2) rhs += smoothWeight * og[n - 1];
+            double m = diagonal + smoothWeight * c[i - 1];
+            c[i] = -smoothWeight / m;
+            d[i] = (rhs + smoothWeight * d[i - 1]) / m;
+        }
+        p[n - 2] = d[n - 2];
+        for(int i = n - 3; i >= 1; i--) {
+            p[i] = d[i] - c[i] * p[i + 1];
         }
     }
 
-    private static void calculateDistances(List<Waypoint> path) {
+    private static void calculateDistances(PathBuffer path) {
         double previousDistance = 0;
-        path.get(0).setD(0);
+        path.setD(0, 0);
         for(int i = 1; i < path.size(); i++) {
-            previousDistance += path.get(i).distance(path.get(i - 1));
-            path.get(i).setD(previousDistance);
+            previousDistance += path.distance(i, i - 1);
+            path.setD(i, previousDistance);
         }
     }
 
-    private static void calculateCurvatures(List<Waypoint> path) {
+    private static void calculateCurvatures(PathBuffer path) {
         for(int i = 1; i < path.size() - 1; i++) {
-            double x1 = path.get(i).getX();
-            double y1 = path.get(i).getY();
-            double x2 = path.get(i - 1).getX();
-            double y2 = path.get(i - 1).getY();
-            double x3 = path.get(i + 1).getX();
-            double y3 = path.get(i + 1).getY();
+            double x1 = path.getX(i);
+            double y1 = path.getY(i);
+            double x2 = path.getX(i - 1);
+            double y2 = path.getY(i - 1);
+            double x3 = path.getX(i + 1);
+            double y3 = path.getY(i + 1);
             if(x1 == x2) x2 += 0.000001;
             double k1 = 0.5 * (x1 * x1 + y1 * y1 - x2 * x2 - y2 * y2) / (x1 - x2);
             double k2 = (y1 - y2) / (x1 - x2);
             double b = 0.5 * (x2 * x2 - 2 * x2 * k1 + y2 * y2 - x3 * x3 + 2 * x3 * k1 - y3 * y3) / (x3 * k2 - y3 + y2 - x2 * k2);
             double a = k1 - k2 * b;
             double r = Math.sqrt((x1 - a) * (x1 - a) + (y1 - b) * (y1 - b));
-            path.get(i).setCurvature(1 / r);
+            path.setCurvature(i, 1 / r);
         }
     }
 
-    private static void calculateMaxVelocities(List<Waypoint> path, double maxVelocity, double turningConstant) {
-        for(Waypoint p : path) {
-            p.setV(Math.min(maxVelocity, turningConstant / p.getCurvature()));
+    static void calculateMaxVelocities(PathBuffer path, double maxVelocity, double turningConstant) {
+        for(int i = 0; i < path.size(); i++) {
+            path.setV(i, Math.min(maxVelocity, turningConstant / path.getCurvature(i)));
         }
     }
 
-    private static void smoothVelocities(List<Waypoint> path, double maxAcceleration) {
-        path.get(path.size() - 1).setV(0);
+    static void smoothVelocities(PathBuffer path, double maxAcceleration) {
+        path.setV(path.size() - 1, 0);
         for(int i = path.size() - 2; i >= 0; i--) {
-            double distance = path.get(i).distance(path.get(i + 1));
-            path.get(i).setV(Math.min(path.get(i).getV(),
-                    Math.sqrt(Math.pow(path.get(i + 1).getV(), 2) + 2 * maxAcceleration * distance)));
+            double distance = path.distance(i, i + 1);
+            path.setV(i, Math.min(path.getV(i),
+                    Math.sqrt(Math.pow(path.getV(i + 1), 2) + 2 * maxAcceleration * distance)));
         }
     }
 
@@ -161,21 +327,33 @@ public class Paths {
      * @return the path
      */
     public static List<Waypoint> loadFromCSV(Path path) {
-        List<Waypoint> waypoints = new ArrayList<>();
         try {
-            List<String> lines = Files.readAllLines(path);
-            lines.remove(0);
-            for(String line : lines) {
-                String[] values = line.split(",");
-                Waypoint point = new Waypoint(Double.parseDouble(values[0]),
-                        Double.parseDouble(values[1]));
-                point.setV(Double.parseDouble(values[2]));
-                point.setD(Double.parseDouble(values[3]));
-                point.setCurvature(Double.parseDouble(values[4]));
-                waypoints.add(point);
-            }
+            return readCSV(path);
         } catch (IOException ioe) {
             ioe.printStackTrace();
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * reads a path from the given csv file, reporting a file which could not be read instead of
+     * returning an empty path
+     *
+     * @param path the csv file to read
+     * @return the path
+     * @throws IOException if the file could not be read
+     */
+    private static List<Waypoint> readCSV(Path path) throws IOException {
+        List<Waypoint> waypoints = new ArrayList<>();
+        List<String> lines = Files.readAllLines(path);
+        for(String line : lines.subList(Math.min(1, lines.size()), lines.size())) {
+            String[] values = line.split(",");
+            Waypoint point = new Waypoint(Double.parseDouble(values[0]),
+                    Double.parseDouble(values[1]));
+            point.setV(Double.parseDouble(values[2]));
+            point.setD(Double.parseDouble(values[3]));
+            point.setCurvature(Double.parseDouble(values[4]));
+            waypoints.add(point);
         }
         return waypoints;
     }
@@ -183,4 +361,135 @@ public class Paths {
     public static List<Waypoint> loadFromCSV(String name) {
         return loadFromCSV(java.nio.file.Paths.get(Filesystem.getDeployDirectory().toString(), name));
     }
+
+    /**
+     * Exports the path to a binary file in the following little endian format:
+     * a header of four ints - the magic number, the format version, the amount of points and
+     * the CRC32 checksum of the data, followed by all of the x coordinates, y coordinates, velocities,
+     * distances and curvatures as doubles.
+     *
+     * @param path the path to export
+     * @param file the binary file
+     * @throws IOException if the file could not be written
+     */
+    public static void exportToBinary(PathBuffer path, Path file) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(BINARY_HEADER_SIZE + path.size() * BINARY_FIELDS * Double.BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        buffer.position(BINARY_HEADER_SIZE);
+        path.write(buffer.slice().order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer());
+        buffer.position(BINARY_HEADER_SIZE);
+        CRC32 crc = new CRC32();
+        crc.update(buffer);
+        buffer.putInt(0, BINARY_MAGIC);
+        buffer.putInt(4, BINARY_VERSION);
+        buffer.putInt(8, path.size());
+        buffer.putInt(12, (int)crc.getValue());
+        buffer.rewind();
+        try(FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while(buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    /**
+     * Exports the path to a binary file, see {@link #exportToBinary(PathBuffer, Path)}.
+     *
+     * @param path the path to export
+     * @param file the binary file
+     * @throws IOException if the file could not be written
+     */
+    public static void exportToBinary(List<Waypoint> path, Path file) throws IOException {
+        exportToBinary(new PathBuffer(path), file);
+    }
+
+    /**
+     * loads a path from the given binary file, which is memory mapped rather than read through a stream.
+     *
+     * @param path the binary file to import from
+     * @return the path
+     * @throws IOException if the file could not be read, or is not a valid binary path
+     */
+    public static PathBuffer loadFromBinary(Path path) throws IOException {
+        MappedByteBuffer buffer;
+        try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        if(buffer.limit() < BINARY_HEADER_SIZE || buffer.getInt(0) != BINARY_MAGIC) {
+            throw new IOException(path + " is not a binary path file");
+        }
+        int version = buffer.getInt(4);
+        if(version != BINARY_VERSION) {
+            throw new IOException(path + " has unsupported binary path version " + version);
+        }
+        int count = buffer.getInt(8);
+        if(count < 0 || buffer.limit() != BINARY_HEADER_SIZE + (long)count * BINARY_FIELDS * Double.BYTES) {
+            throw new IOException(path + " is truncated");
+        }
+        buffer.position(BINARY_HEADER_SIZE);
+        CRC32 crc = new CRC32();
+        crc.update(buffer);
+        if((int)crc.getValue() != buffer.getInt(12)) {
+            throw new IOException(path + " failed its checksum");
+        }
+        buffer.position(BINARY_HEADER_SIZE);
+        PathBuffer pathBuffer = new PathBuffer(count);
+        pathBuffer.read(buffer.slice().order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer(), count);
+        return pathBuffer;
+    }
+
+    /**
+     * loads a path from the given binary file in the deploy directory
+     *
+     * @param name the name of the binary file
+     * @return the path
+     * @throws IOException if the file could not be read, or is not a valid binary path
+     */
+    public static PathBuffer loadFromBinary(String name) throws IOException {
+        return loadFromBinary(java.nio.file.Paths.get(Filesystem.getDeployDirectory().toString(), name));
+    }
+
+    /**
+     * Converts every CSV path in the given directory into the binary format, saving each one next to its CSV
+     * with the {@link #BINARY_EXTENSION} extension. CSVs which already have an up to date binary file are skipped.
+     * No binary file is written for a CSV which could not be read or has no waypoints, so it is converted again
+     * on the next run.
+     *
+     * @param directory the directory containing the CSV files
+     * @return the binary files which were written
+     * @throws IOException if a file could not be read or written, or a CSV has no waypoints
+     */
+    public static List<Path> convertCSVsToBinary(Path directory) throws IOException {
+        List<Path> converted = new ArrayList<>();
+        try(DirectoryStream<Path> csvs = Files.newDirectoryStream(directory, "*.csv")) {
+            for(Path csv : csvs) {
+                String name = csv.getFileName().toString();
+                Path binary = csv.resolveSibling(name.substring(0, name.length() - 4) + BINARY_EXTENSION);
+                if(Files.exists(binary) &&
+                        Files.getLastModifiedTime(binary).compareTo(Files.getLastModifiedTime(csv)) >= 0) {
+                    continue;
+                }
+                List<Waypoint> waypoints = readCSV(csv);
+                if(waypoints.isEmpty()) {
+                    throw new IOException(csv + " has no waypoints");
+                }
+                exportToBinary(waypoints, binary);
+                converted.add(binary);
+            }
+        }
+        return converted;
+    }
+
+    /**
+     * Converts every CSV path in the deploy directory into the binary format,
+     * see {@link #convertCSVsToBinary(Path)}.
+     *
+     * @return the binary files which were written
+     * @throws IOException if a file could not be read or written
+     */
+    public static List<Path> convertCSVsToBinary() throws IOException {
+        return convertCSVsToBinary(Filesystem.getDeployDirectory().toPath());
+    }
 }
@@ -0,0 +1,347 @@
+package com.spikes2212.path;
+
+import com.spikes2212.util.Limelight;
+import com.spikes2212.util.Suppliers;
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj.geometry.Pose2d;
+
+import java.util.function.DoubleSupplier;
+import java.util.function.Supplier;
+
+/**
+ * An {@link OdometryHandler} which also corrects the robot's position using vision measurements,
+ * such as the ones of a {@link Limelight}. It can be used anywhere an {@link OdometryHandler} is used.
+ * <p>
+ * The yaw is taken from the gyro as is, so only the position is estimated, using a Kalman filter:
+ * the variance of the position starts at an initial variance, grows with the distance driven, and every
+ * vision measurement pulls the position towards it according to both variances. The initial variance
+ * should be large when the starting position is not known, so that vision can correct it before the robot
+ * has driven.
+ * <p>
+ * Vision measurements arrive late, so every step of the odometry is kept. A measurement is applied at the
+ * step it was taken at, and the steps after it are replayed on top of the corrected position.
+ * The amount of steps kept is fixed, so applying a measurement takes at most that many steps;
+ * measurements older than the oldest kept step are ignored.
+ */
+public class PoseEstimator extends OdometryHandler {
+
+    /**
+     * The default amount of kept steps, which covers one second when calculating at 200Hz.
+     */
+    public static final int DEFAULT_CAPACITY = 200;
+
+    /**
+     * The default standard deviation of the initial position, in meters, which is about the size of the field
+     * so that the first vision measurements determine the position.
+     */
+    public static final double DEFAULT_INITIAL_STD_DEV = 10;
+
+    /**
+     * The variance of the position added for every meter driven, and the variance of a vision measurement.
+     */
+    private final double driftVariance, visionVariance;
+
+    /**
+     * The variance of the position after it is set without a variance.
+     */
+    private final double initialVariance;
+
+    /**
+     * The odometry of every step: its time, the robot's yaw in degrees, the change in position
+     * and the variance added by it.
+     */
+    private final double[] timestamps, yaws, deltaX, deltaY, processVariance;
+
+    /**
+     * The estimate at every step, before and after applying the step's vision measurement.
+     */
+    private final double[] priorX, priorY, priorVariance, x, y, variance;
+
+    /**
+     * The vision measurement applied at every step. Steps without a measurement have an infinite variance.
+     */
+    private final double[] measuredX, measuredY, measurementVariance;
+
+    private int head = 0, size = 0;
+
+    /**
+     * The latest estimate, which is also the handler's current position.
+     */
+    private double lastX, lastY, lastVariance;
+
+    /**
+     * creates a new {@link PoseEstimator}
+     * @param leftPosition  the left position supplier
+     * @param rightPosition the right position supplier
+     * @param angleSupplier the angle supplier
+     * @param x the initial x coordinate
+     * @param y the initial y coordinate
+     * @param time the supplier of the current time in seconds, in the same time base as the vision measurements
+     * @param driftStdDev the standard deviation of the odometry's error after driving one meter
+     * @param visionStdDev the standard deviation of a vision measurement's error, in meters
+     * @param initialStdDev the standard deviation of the initial position, and of a position which is set
+     *                      without one, in meters
+     * @param capacity the amount of odometry steps kept for replaying
+     */
+    public PoseEstimator(DoubleSupplier leftPosition, DoubleSupplier rightPosition,
+                         DoubleSupplier angleSupplier, double x, double y, DoubleSupplier time,
+                         double driftStdDev, double visionStdDev, double initialStdDev, int capacity) {
+        super(leftPosition, rightPosition, angleSupplier, x, y, time);
+        if(capacity < 1) throw new IllegalArgumentException("capacity must be positive");
+        this.driftVariance = driftStdDev * driftStdDev;
+        this.visionVariance = visionStdDev * visionStdDev;
+        this.initialVariance = initialStdDev * initialStdDev;
+        this.lastX = x;
+        this.lastY = y;
+        this.lastVariance = initialVariance;
+        timestamps = new double[capacity];
+        yaws = new double[capacity];
+        deltaX = new double[capacity];
+        deltaY = new double[capacity];
+        processVariance = new double[capacity];
+        priorX = new double[capacity];
+        priorY = new double[capacity];
+        priorVariance = new double[capacity];
+        this.x = new double[capacity];
+        this.y = new double[capacity];
+        variance = new double[capacity];
+        measuredX = new double[capacity];
+        measuredY = new double[capacity];
+        measurementVariance = new double[capacity];
+    }
+
+    /**
+     * creates a new {@link PoseEstimator} whose initial position has a standard deviation of
+     * {@link #DEFAULT_INITIAL_STD_DEV}
+     * @param leftPosition  the left position supplier
+     * @param rightPosition the right position supplier
+     * @param angleSupplier the angle supplier
+     * @param x the initial x coordinate
+     * @param y the initial y coordinate
+     * @param time the supplier of the current time in seconds, in the same time base as the vision measurements
+     * @param driftStdDev the standard deviation of the odometry's error after driving one meter
+     * @param visionStdDev the standard deviation of a vision measurement's error, in meters
+     * @param capacity the amount of odometry steps kept for replaying
+     */
+    public PoseEstimator(DoubleSupplier leftPosition, DoubleSupplier rightPosition,
+                         DoubleSupplier angleSupplier, double x, double y, DoubleSupplier time,
+                         double driftStdDev, double visionStdDev, int capacity) {
+        this(leftPosition, rightPosition, angleSupplier, x, y, time, driftStdDev, visionStdDev,
+                DEFAULT_INITIAL_STD_DEV, capacity);
+    }
+
+    /**
+     * creates a new {@link PoseEstimator} which keeps {@link #DEFAULT_CAPACITY} steps and uses the FPGA time
+     * @param leftPosition  the left position supplier
+     * @param rightPosition the right position supplier
+     * @param angleSupplier the angle supplier
+     * @param x the initial x coordinate
+     * @param y the initial y coordinate
+     * @param driftStdDev the standard deviation of the odometry's error after driving one meter
+     * @param visionStdDev the standard deviation of a vision measurement's error, in meters
+     */
+    public PoseEstimator(DoubleSupplier leftPosition, DoubleSupplier rightPosition,
+                         DoubleSupplier angleSupplier, double x, double y, double driftStdDev,
+                         double visionStdDev) {
+        this(leftPosition, rightPosition, angleSupplier, x, y, Timer::getFPGATimestamp, driftStdDev, visionStdDev,
+                DEFAULT_CAPACITY);
+    }
+
+    public PoseEstimator(Supplier<Double> leftPosition, Supplier<Double> rightPosition,
+                         Supplier<Double> angleSupplier, double x, double y, Supplier<Double> time,
+                         double driftStdDev, double visionStdDev, double initialStdDev, int capacity) {
+        this(Suppliers.unbox(leftPosition), Suppliers.unbox(rightPosition), Suppliers.unbox(angleSupplier), x, y,
+                Suppliers.unbox(time), driftStdDev, visionStdDev, initialStdDev, capacity);
+    }
+
+    public PoseEstimator(Supplier<Double> leftPosition, Supplier<Double> rightPosition,
+                         Supplier<Double> angleSupplier, double x, double y, Supplier<Double> time,
+                         double driftStdDev, double visionStdDev, int capacity) {
+        this(Suppliers.unbox(leftPosition), Suppliers.unbox(rightPosition), Suppliers.unbox(angleSupplier), x, y,
+                Suppliers.unbox(time), driftStdDev, visionStdDev, capacity);
+    }
+
+    public PoseEstimator(Supplier<Double> leftPosition, Supplier<Double> rightPosition,
+                         Supplier<Double> angleSupplier, double x, double y, double driftStdDev,
+                         double visionStdDev) {
+        this(Suppliers.unbox(leftPosition), Suppliers.unbox(rightPosition), Suppliers.unbox(angleSupplier), x, y,
+                driftStdDev, visionStdDev);
+    }
+
+    @Override
+    protected void onCalculate(double distance, double yaw) {
+        Pose2d pose = getPose();
+        int i = head;
+        timestamps[i] = getTime();
+        yaws[i] = yaw;
+        deltaX[i] = pose.getTranslation().getX() - lastX;
+        deltaY[i] = pose.getTranslation().getY() - lastY;
+        processVariance[i] = driftVariance * Math.abs(distance);
+        priorX[i] = lastX + deltaX[i];
+        priorY[i] = lastY + deltaY[i];
+        priorVariance[i] = lastVariance + processVariance[i];
+        measurementVariance[i] = Double.POSITIVE_INFINITY;
+        correct(i);
+        lastX = x[i];
+        lastY = y[i];
+        lastVariance = variance[i];
+        head = head == timestamps.length - 1 ? 0 : head + 1;
+        if(size < timestamps.length) size++;
+    }
+
+    /**
+     * Moves the robot to the given position. The position is treated as unknown, with the initial standard
+     * deviation, so that vision measurements can still correct it; use {@link #set(double, double, double)}
+     * for a position which is known.
+     *
+     * @param x the x coordinate
+     * @param y the y coordinate
+     */
+    @Override
+    public synchronized void set(double x, double y) {
+        set(x, y, Math.sqrt(initialVariance));
+    }
+
+    /**
+     * Moves the robot to the given position, and forgets every kept step.
+     *
+     * @param x      the x coordinate
+     * @param y      the y coordinate
+     * @param stdDev the standard deviation of the position, in meters
+     */
+    public synchronized void set(double x, double y, double stdDev) {
+        super.set(x, y);
+        lastX = x;
+        lastY = y;
+        lastVariance = stdDev * stdDev;
+        size = 0;
+    }
+
+    /**
+     * Corrects the robot's position using a measurement of its position.
+     *
+     * @param x         the measured x coordinate
+     * @param y         the measured y coordinate
+     * @param timestamp the time the measurement was taken at, in seconds
+     * @return whether the measurement was applied, which it is not if it is older than every kept step
+     */
+    public synchronized boolean addVisionMeasurement(double x, double y, double timestamp) {
+        int step = find(timestamp);
+        if(step < 0) return false;
+        if(measurementVariance[step] == Double.POSITIVE_INFINITY) {
+            measuredX[step] = x;
+            measuredY[step] = y;
+            measurementVariance[step] = visionVariance;
+        } else { // two measurements at the same step are equivalent to a single, more certain measurement
+            double weight = measurementVariance[step] / (measurementVariance[step] + visionVariance);
+            measuredX[step] += (x - measuredX[step]) * weight;
+            measuredY[step] += (y - measuredY[step]) * weight;
+            measurementVariance[step] *= visionVariance / (measurementVariance[step] + visionVariance);
+        }
+        replay(step);
+        setPose(new Pose2d(lastX, lastY, getPose().getRotation()));
+        return true;
+    }
+
+    /**
+     * Corrects the robot's position using the distance and angle to a target at a known position.
+     * The camera is assumed to be at the center of the robot.
+     *
+     * @param distance  the distance from the robot to the target
+     * @param angle     the angle from the robot's heading to the target, in degrees, counterclockwise positive
+     * @param targetX   the target's x coordinate
+     * @param targetY   the target's y coordinate
+     * @param timestamp the time the measurement was taken at, in seconds
+     * @return whether the measurement was applied, which it is not if it is older than every kept step
+     */
+    public synchronized boolean addTargetMeasurement(double distance, double angle, double targetX, double targetY,
+                                                     double timestamp) {
+        int step = find(timestamp);
+        if(step < 0) return false;
+        double direction = Math.toRadians(yaws[step] + angle);
+        return addVisionMeasurement(targetX - distance * Math.cos(direction),
+                targetY - distance * Math.sin(direction), timestamp);
+    }
+
+    /**
+     * Corrects the robot's position using the target currently seen by a {@link Limelight}, taking the
+     * limelight's latency into account. The camera is assumed to be at the center of the robot.
+     *
+     * @param limelight    the limelight
+     * @param targetX      the target's x coordinate
+     * @param targetY      the target's y coordinate
+     * @param targetHeight the height of the target
+     * @param cameraHeight the height of the camera
+     * @param cameraPitch  the angle between the camera and the floor, in degrees
+     * @return whether a measurement was applied
+     */
+    public boolean addLimelightMeasurement(Limelight limelight, double targetX, double targetY,
+                                           double targetHeight, double cameraHeight, double cameraPitch) {
+        if(!limelight.getHasValidTargets()) return false;
+        double distance = (targetHeight - cameraHeight) /
+                Math.tan(Math.toRadians(cameraPitch + limelight.getVerticalAngleToTarget()));
+        return addTargetMeasurement(distance, -limelight.getHorizontalAngleToTarget(), targetX, targetY,
+                limelight.getCaptureTimestamp());
+    }
+
+    /**
+     * returns the standard deviation of the current position estimate
+     * @return the standard deviation of the position, in meters
+     */
+    public synchronized double getStdDev() {
+        return Math.sqrt(lastVariance);
+    }
+
+    /**
+     * Finds the latest step taken at or before the given time.
+     *
+     * @return the index of the step, or -1 if the time is before every kept step
+     */
+    private int find(double timestamp) {
+        int oldest = head - size;
+        if(oldest < 0) oldest += timestamps.length;
+        int low = 0, high = size;
+        while(low < high) {
+            int middle = (low + high) >>> 1;
+            if(timestamps[physical(oldest, middle)] <= timestamp) low = middle + 1;
+            else high = middle;
+        }
+        return low == 0 ? -1 : physical(oldest, low - 1);
+    }
+
+    private int physical(int oldest, int index) {
+        int physical = oldest + index;
+        return physical >= timestamps.length ? physical - timestamps.length : physical;
+    }
+
+    /**
+     * Recalculates the estimate of every step from the given step to the latest one.
+     */
+    private void replay(int step) {
+        int latest = head == 0 ? timestamps.length - 1 : head - 1;
+        int i = step;
+        correct(i);
+        while(i != latest) {
+            int previous = i;
+            i = i == timestamps.length - 1 ? 0 : i + 1;
+            priorX[i] = x[previous] + deltaX[i];
+            priorY[i] = y[previous] + deltaY[i];
+            priorVariance[i] = variance[previous] + processVariance[i];
+            correct(i);
+        }
+        lastX = x[latest];
+        lastY = y[latest];
+        lastVariance = variance[latest];
+    }
+
+    /**
+     * Applies the vision measurement of a step to its prior estimate.
+     */
+    private void correct(int i) {
+        double gain = measurementVariance[i] == Double.POSITIVE_INFINITY ? 0 :
+                priorVariance[i] / (priorVariance[i] + measurementVariance[i]);
+        x[i] = priorX[i] + (measuredX[i] - priorX[i]) * gain;
+        y[i] = priorY[i] + (measuredY[i] - priorY[i]) * gain;
+        variance[i] = priorVariance[i] * (1 - gain);
+    }
+}
@@ -0,0 +1,229 @@
+package com.spikes2212.path;
+
+import edu.wpi.first.wpilibj.geometry.Pose2d;
+import edu.wpi.first.wpilibj.geometry.Rotation2d;
+
+import java.lang.invoke.VarHandle;
+
+/**
+ * A fixed size history of timestamped robot poses.
+ * <p>
+ * The poses are kept in preallocated arrays used as a ring buffer, so adding a pose never allocates,
+ * and once the history is full every new pose replaces the oldest one.
+ * A single thread may add poses while any number of other threads read them. Readers never take a lock:
+ * the history is guarded by a sequence counter, which is odd while a pose is being written, and a reader
+ * simply reads again if the counter changed while it was reading.
+ * <p>
+ * The pose at any time covered by the history can be found with {@link #getPoseAt(double, Sample)},
+ * which binary searches the timestamps and interpolates between the two closest poses.
+ */
+public class PoseHistory {
+
+    /**
+     * A pose of the robot at a point in time.
+     * Instances are mutable so they can be reused between reads.
+     */
+    public static class Sample {
+        private double timestamp, x, y, yaw;
+
+        public double getTimestamp() {
+            return timestamp;
+        }
+
+        public double getX() {
+            return x;
+        }
+
+        public double getY() {
+            return y;
+        }
+
+        /**
+         * returns the robot's yaw in degrees
+         * @return the robot's yaw
+         */
+        public double getYaw() {
+            return yaw;
+        }
+
+        @Override
+        public String toString() {
+            return "t: " + timestamp + " x: " + x + " y: " + y + " yaw: " + yaw;
+        }
+    }
+
+    private final double[] timestamps, x, y, yaw;
+
+    /**
+     * Incremented before and after every write, so it is odd while a write is in progress.
+     */
+    private volatile long sequence = 0;
+
+    /**
+     * The index the next pose will be written at, and the amount of poses in the history.
+     * Only read between two reads of {@code sequence}.
+     */
+    private int head = 0, size = 0;
+
+    /**
+     * creates a new {@link PoseHistory}
+     * @param capacity the maximum amount of poses kept
+     */
+    public PoseHistory(int capacity) {
+        if(capacity < 1) throw new IllegalArgumentException("capacity must be positive");
+        timestamps = new double[capacity];
+        x = new double[capacity];
+        y = new double[capacity];
+        yaw = new double[capacity];
+    }
+
+    public int getCapacity() {
+        return timestamps.length;
+    }
+
+    /**
+     * Adds a pose to the history, replacing the oldest one if the history is full.
+     * Should only be called from a single thread, and with increasing timestamps.
+     *
+     * @param timestamp the time the robot was at the pose, in seconds
+     * @param x         the robot's x coordinate
+     * @param y         the robot's y coordinate
+     * @param yaw       the robot's yaw in degrees
+     */
+    public void add(double timestamp, double x, double y, double yaw) {
+        long sequence = beginWrite();
+        timestamps[head] = timestamp;
+        this.x[head] = x;
+        this.y[head] = y;
+        this.yaw[head] = yaw;
+        head = head == timestamps.length - 1 ? 0 : head + 1;
+        if(size < timestamps.length) size++;
+        this.sequence = sequence + 2;
+    }
+
+    /**
+     * Removes every pose from the history.
+     * Should only be called from the thread which adds the poses.
+     */
+    public void clear() {
+        long sequence = beginWrite();
+        size = 0;
+        this.sequence = sequence + 2;
+    }
+
+    /**
+     * returns the amount of poses in the history
+     * @return the amount of poses in the history
+     */
+    public int size() {
+        while(true) {
+            long sequence = beginRead();
+            int size = this.size;
+            if(validate(sequence)) return size;
+        }
+    }
+
+    /**
+     * Reads the latest pose in the history into {@code sample}.
+     *
+     * @param sample the object to read the pose into
+     * @return whether there was a pose in the history
+     */
+    public boolean getLatest(Sample sample) {
+        while(true) {
+            long sequence = beginRead();
+            boolean found = size > 0;
+            if(found) read(head == 0 ? timestamps.length - 1 : head - 1, sample);
+            if(validate(sequence)) return found;
+        }
+    }
+
+    /**
+     * Reads the pose of the robot at the given time into {@code sample}, linearly interpolating between
+     * the two poses closest to it. Times before the oldest pose or after the latest pose are clamped to them.
+     *
+     * @param timestamp the time, in seconds
+     * @param sample    the object to read the pose into
+     * @return whether there was a pose in the history
+     */
+    public boolean getPoseAt(double timestamp, Sample sample) {
+        while(true) {
+            long sequence = beginRead();
+            boolean found = size > 0;
+            if(found) interpolate(timestamp, sample);
+            if(validate(sequence)) return found;
+        }
+    }
+
+    /**
+     * returns the pose of the robot at the given time, see {@link #getPoseAt(double, Sample)}
+     * @param timestamp the time, in seconds
+     * @return the pose at the given time, or {@code null} if the history is empty
+     */
+    public Pose2d getPoseAt(double timestamp) {
+        Sample sample = new Sample();
+        if(!getPoseAt(timestamp, sample)) return null;
+        return new Pose2d(sample.x, sample.y, Rotation2d.fromDegrees(sample.yaw));
+    }
+
+    /**
+     * Finds the pose at the given time. Must be called between {@link #beginRead()} and {@link #validate(long)},
+     * with at least one pose in the history. The values read may be inconsistent, but are always within bounds.
+     */
+    private void interpolate(double timestamp, Sample sample) {
+        int size = this.size, oldest = head - size;
+        if(oldest < 0) oldest += timestamps.length;
+        int low = 0, high = size;
+        while(low < high) { // finds the first pose after the timestamp
+            int middle = (low + high) >>> 1;
+            if(timestamps[physical(oldest, middle)] <= timestamp) low = middle + 1;
+            else high = middle;
+        }
+        if(low == 0 || low == size) {
+            read(physical(oldest, low == 0 ? 0 : size - 1), sample);
+            sample.timestamp = timestamp;
+            return;
+        }
+        int before = physical(oldest, low - 1), after = physical(oldest, low);
+        double interval = timestamps[after] - timestamps[before];
+        double fraction = interval > 0 ? (timestamp - timestamps[before]) / interval : 0;
+        sample.timestamp = timestamp;
+        sample.x = x[before] + (x[after] - x[before]) * fraction;
+        sample.y = y[before] + (y[after] - y[before]) * fraction;
+        // interpolates the yaw the short way around, so that it doesn't sweep back across a wrap from 180 to -180
+        sample.yaw = yaw[before] + Math.IEEEremainder(yaw[after] - yaw[before], 360) * fraction;
+    }
+
+    private int physical(int oldest, int index) {
+        int physical = oldest + index;
+        return physical >= timestamps.length ? physical - timestamps.length : physical;
+    }
+
+    private void read(int index, Sample sample) {
+        sample.timestamp = timestamps[index];
+        sample.x = x[index];
+        sample.y = y[index];
+        sample.yaw = yaw[index];
+    }
+
+    private long beginWrite() {
+        long sequence = this.sequence;
+        this.sequence = sequence + 1;
+        VarHandle.storeStoreFence();
+        return sequence;
+    }
+
+    private long beginRead() {
+        long sequence = this.sequence;
+        while((sequence & 1) != 0) {
+            Thread.onSpinWait();
+            sequence = this.sequence;
+        }
+        return sequence;
+    }
+
+    private boolean validate(long sequence) {
+        VarHandle.loadLoadFence();
+        return this.sequence == sequence;
+    }
+}
@@ -1,36 +1,81 @@
 package com.spikes2212.path;
 
+import edu.wpi.first.wpilibj.geometry.Pose2d;
+
 import java.util.List;
 
 /**
  * This class represents a PurePursuitController.
  * You should the getSpeeds method periodically.
+ * <p>
+ * The robot is located on the path by projecting it onto the segments within a search window ahead of
+ * where it was last found, so the cost of every call does not depend on the length of the path.
+ * If the robot leaves the window, it is found again using a coarse spatial index of the path.
  *
  * @author T
  */
-public class PurePursuitController {
+public class PurePursuitController implements PathController {
     private OdometryHandler odometryHandler;
-    private List<Waypoint> path;
+    private PathBuffer path;
     private int lastClosestIndex = 0, lastLookaheadIndex = 0;
+
+    /**
+     * The position of the robot's projection along the segment starting at {@code lastClosestIndex},
+     * where 0 is the start of the segment and 1 is its end.
+     */
+    private double lastClosestT = 0;
+
+    /**
+     * The lookahead point found by the last call to {@link #getLookaheadPoint()}.
+     */
+    private double lookaheadX, lookaheadY;
+
+    /**
+     * The robot's position in path coordinates and its yaw, read from a single pose of the odometry handler
+     * at the start of every call, so that they all come from the same odometry update.
+     */
+    private double robotX, robotY, robotYaw;
     private double lookaheadDistance;
     private double robotWidth;
 
+    /**
+     * The distance along the path ahead of the robot which is searched every call.
+     */
+    private double searchWindow;
+
+    /**
+     * The spatial index of the path, built the first time the robot leaves the search window.
+     */
+    private SegmentGrid grid;
+
     private RateLimiter rateLimiter;
 
-    public PurePursuitController(OdometryHandler odometryHandler, List<Waypoint> path, double lookaheadDistance,
+    public PurePursuitController(OdometryHandler odometryHandler, PathBuffer path, double lookaheadDistance,
                                  double maxRate, double robotWidth, double period) {
+        if(lookaheadDistance <= 0) throw new IllegalArgumentException("lookaheadDistance must be positive");
         this.odometryHandler = odometryHandler;
         this.path = path;
         this.lookaheadDistance = lookaheadDistance;
         this.robotWidth = robotWidth;
+        this.searchWindow = 3 * lookaheadDistance;
         this.rateLimiter = new RateLimiter(maxRate, period);
     }
 
-    public PurePursuitController(OdometryHandler odometryHandler, List<Waypoint> path, double lookaheadDistance,
+    public PurePursuitController(OdometryHandler odometryHandler, PathBuffer path, double lookaheadDistance,
                                  double maxRate, double robotWidth) {
         this(odometryHandler, path, lookaheadDistance, maxRate, robotWidth, 0.02);
     }
 
+    public PurePursuitController(OdometryHandler odometryHandler, List<Waypoint> path, double lookaheadDistance,
+                                 double maxRate, double robotWidth, double period) {
+        this(odometryHandler, new PathBuffer(path), lookaheadDistance, maxRate, robotWidth, period);
+    }
+
+    public PurePursuitController(OdometryHandler odometryHandler, List<Waypoint> path, double lookaheadDistance,
+                                 double maxRate, double robotWidth) {
+        this(odometryHandler, new PathBuffer(path), lookaheadDistance, maxRate, robotWidth);
+    }
+
     public OdometryHandler getOdometryHandler() {
         return odometryHandler;
     }
@@ -39,12 +84,25 @@ public class PurePursuitController {
         this.odometryHandler = odometryHandler;
     }
 
+    /**
+     * returns a copy of the followed path as a {@link List} of {@link Waypoint}s
+     * @return a copy of the followed path
+     */
     public List<Waypoint> getPath() {
-        return path;
+        return path.toList();
     }
 
     public void setPath(List<Waypoint> path) {
+        setPath(new PathBuffer(path));
+    }
+
+    public PathBuffer getPathBuffer() {
+        return path;
+    }
+
+    public void setPath(PathBuffer path) {
         this.path = path;
+        this.grid = null;
     }
 
     public double getLookaheadDistance() {
@@ -52,81 +110,177 @@ public class PurePursuitController {
     }
 
     public void setLookaheadDistance(double lookaheadDistance) {
+        if(lookaheadDistance <= 0) throw new IllegalArgumentException("lookaheadDistance must be positive");
         this.lookaheadDistance = lookaheadDistance;
     }
 
-    private Waypoint closestPoint() {
-        Waypoint robot = odometryHandler.getWaypoint();
-        double minDistance = Double.POSITIVE_INFINITY, distance;
+    public double getSearchWindow() {
+        return searchWindow;
+    }
+
+    /**
+     * Sets the distance along the path ahead of the robot which is searched every call.
+     * It should be larger than the lookahead distance, and defaults to three times the lookahead distance.
+     *
+     * @param searchWindow the search window
+     * @throws IllegalArgumentException if the search window is not positive
+     */
+    public void setSearchWindow(double searchWindow) {
+        if(searchWindow <= 0) throw new IllegalArgumentException("searchWindow must be positive");
+        this.searchWindow = searchWindow;
+        this.grid = null;
+    }
+
+    /**
+     * returns the distance along the path of the robot's projection onto it, as found by the last call
+     * @return the robot's position along the path
+     */
+    public double getPathPosition() {
+        if(path.size() < 2) return 0;
+        return path.getD(lastClosestIndex) +
+                lastClosestT * (path.getD(lastClosestIndex + 1) - path.getD(lastClosestIndex));
+    }
+
+    private void closestPoint() {
+        if(path.size() < 2) return;
+        double x = robotX, y = robotY;
+        double windowEnd = path.getD(lastClosestIndex) + searchWindow;
+        double minDistance = Double.POSITIVE_INFINITY;
         int minIndex = lastClosestIndex;
-        for(int i = lastClosestIndex; i < path.size(); i++) {
-            if((distance = path.get(i).distance(robot)) < minDistance) {
+        double minT = lastClosestT;
+        int i;
+        for(i = lastClosestIndex; i < path.size() - 1 && path.getD(i) <= windowEnd; i++) {
+            double t = path.project(i, x, y);
+            double distance = path.distanceSquared(i, t, x, y);
+            if(distance < minDistance) {
                 minIndex = i;
+                minT = t;
                 minDistance = distance;
             }
         }
+        boolean pastWindow = i < path.size() - 1 && minIndex == i - 1 && minT == 1;
+        if(pastWindow || minDistance > searchWindow * searchWindow) {
+            if(grid == null) grid = new SegmentGrid(path, searchWindow);
+            if(grid.find(x, y, lastClosestIndex) &&
+                    path.distanceSquared(grid.getSegment(), grid.getT(), x, y) < minDistance) {
+                minIndex = grid.getSegment();
+                minT = grid.getT();
+            }
+        }
         lastClosestIndex = minIndex;
-        return path.get(minIndex);
-    }
-
-    private Waypoint getLookaheadPoint() {
-        Waypoint robot = odometryHandler.getWaypoint();
-        for(int i = lastLookaheadIndex; i < path.size() - 1; i++) {
-            Waypoint segment = new Waypoint(path.get(i + 1).getX() - path.get(i).getX()
-                    , path.get(i + 1).getY() - path.get(i).getY());
-            Waypoint robotToStart = new Waypoint(path.get(i).getX() - robot.getX()
-                    , path.get(i).getY() - robot.getY());
-            double a = segment.getX() * segment.getX() + segment.getY() * segment.getY();
-            double b = 2 * (robotToStart.getX() * segment.getX() + robotToStart.getY() * segment.getY());
-            double c = robotToStart.getX() * robotToStart.getX() + robotToStart.getY() * robotToStart.getY()
+        lastClosestT = minT;
+    }
+
+    private double closestVelocity() {
+        if(path.size() < 2) return path.size() == 0 ? 0 : path.getV(0);
+        return path.getV(lastClosestIndex) +
+                lastClosestT * (path.getV(lastClosestIndex + 1) - path.getV(lastClosestIndex));
+    }
+
+    /**
+     * Finds the lookahead point and stores it in {@code lookaheadX} and {@code lookaheadY}.
+     *
+     * @return whether a lookahead point was found
+     */
+    private boolean getLookaheadPoint() {
+        double windowEnd = getPathPosition() + searchWindow;
+        for(int i = Math.max(lastLookaheadIndex, lastClosestIndex); i < path.size() - 1 && path.getD(i) <= windowEnd;
+            i++) {
+            double segmentX = path.getX(i + 1) - path.getX(i);
+            double segmentY = path.getY(i + 1) - path.getY(i);
+            double robotToStartX = path.getX(i) - robotX;
+            double robotToStartY = path.getY(i) - robotY;
+            double a = segmentX * segmentX + segmentY * segmentY;
+            double b = 2 * (robotToStartX * segmentX + robotToStartY * segmentY);
+            double c = robotToStartX * robotToStartX + robotToStartY * robotToStartY
                     - lookaheadDistance * lookaheadDistance;
             double discriminant = b * b - 4 * a * c;
             if(discriminant >= 0) {
                 discriminant = Math.sqrt(discriminant);
                 double t1 = (-b - discriminant) / (2 * a);
                 double t2 = (-b + discriminant) / (2 * a);
-                if(t1 >= 0 && t1 <= 1) {
-                    lastLookaheadIndex = i;
-                    return new Waypoint(path.get(i).getX() + t1 * segment.getX(),
-                            path.get(i).getY() + t1 * segment.getY());
-                }
-                if (t2 >= 0 && t2 <= 1) {
+                double t = t1 >= 0 && t1 <= 1 ? t1 : t2;
+                if(t >= 0 && t <= 1) {
                     lastLookaheadIndex = i;
-                    return new Waypoint(path.get(i).getX() + t2 * segment.getX(),
-                            path.get(i).getY() + t2 * segment.getY());
+                    lookaheadX = path.getX(i) + t * segmentX;
+                    lookaheadY = path.getY(i) + t * segmentY;
+                    return true;
                 }
             }
         }
-        return null;
+        return false;
     }
 
     private double pathCurvature() {
-        Waypoint robot = odometryHandler.getWaypoint();
-        Waypoint lookahead = getLookaheadPoint();
-        if(lookahead == null) return Double.POSITIVE_INFINITY;
-        double yaw = Math.toRadians(90 - odometryHandler.getYaw());
+        if(!getLookaheadPoint()) return Double.POSITIVE_INFINITY;
+        return curvatureTo(robotX, robotY, robotYaw, lookaheadX, lookaheadY, lookaheadDistance);
+    }
+
+    /**
+     * Reads the robot's pose into {@code robotX}, {@code robotY} and {@code robotYaw}, swapping the
+     * coordinates into path coordinates.
+     */
+    private void readPose() {
+        Pose2d pose = odometryHandler.getPose();
+        robotX = pose.getTranslation().getY();
+        robotY = pose.getTranslation().getX();
+        robotYaw = pose.getRotation().getDegrees();
+    }
+
+    /**
+     * Calculates the curvature of the arc from the robot to the target point, which is tangent to the robot's heading.
+     *
+     * @param robotX the robot's x coordinate, in path coordinates
+     * @param robotY the robot's y coordinate, in path coordinates
+     * @param yaw the robot's yaw, in degrees
+     * @param targetX the target's x coordinate
+     * @param targetY the target's y coordinate
+     * @param distance the distance between the robot and the target
+     * @return the signed curvature of the arc
+     */
+    static double curvatureTo(double robotX, double robotY, double yaw, double targetX, double targetY,
+                              double distance) {
+        yaw = Math.toRadians(90 - yaw);
         double slope = Math.tan(yaw);
-        double freeTerm = slope * robot.getX() - robot.getY();
-        double x = Math.abs(-slope * lookahead.getX() + lookahead.getY() + freeTerm) /
+        double freeTerm = slope * robotX - robotY;
+        double x = Math.abs(-slope * targetX + targetY + freeTerm) /
                 Math.sqrt(slope * slope + 1); //distance between lookahead point and robot line
-        double side = Math.sin(yaw) * (lookahead.getX() - robot.getX()) -
-                Math.cos(yaw) * (lookahead.getY() - robot.getY()); //uses cross product to determine side
+        double side = Math.sin(yaw) * (targetX - robotX) -
+                Math.cos(yaw) * (targetY - robotY); //uses cross product to determine side
         if(side == 0) return 0;
-        return 2 * x / (lookaheadDistance * lookaheadDistance) * side / Math.abs(side);
+        return 2 * x / (distance * distance) * side / Math.abs(side);
     }
 
     /**
-     * Returns the target speeds for left and right as an array.
+     * Writes the target speeds for left and right into the given array, without allocating any objects.
      * Left speed at index 0, right speed at index 1.
      * The List<Waypoint> has ended when the speeds become {@code Double.POSITIVE_INFINITY}.
      *
-     * @return the target side speeds as an array
+     * @param speeds the array to write the speeds into, of at least two elements
+     * @return the given array
+     */
+    @Override
+    public double[] getTargetSpeeds(double[] speeds) {
+        return getTargetSpeeds(speeds, rateLimiter.getPeriod());
+    }
+
+    /**
+     * Writes the target speeds for left and right into the given array, limiting the acceleration
+     * by the time which actually passed since the last call.
+     *
+     * @param speeds the array to write the speeds into, of at least two elements
+     * @param dt     the time since the last call, in seconds
+     * @return the given array
      */
-    public double[] getTargetSpeeds(){
-        double velocity = rateLimiter.calculate(closestPoint().getV());
+    @Override
+    public double[] getTargetSpeeds(double[] speeds, double dt) {
+        readPose();
+        closestPoint();
+        double velocity = rateLimiter.calculate(closestVelocity(), dt);
         double pathCurvature = pathCurvature();
-        return new double[]{velocity * (2 + pathCurvature * robotWidth) / 2,
-                velocity * (2 - pathCurvature * robotWidth) / 2};
+        speeds[0] = velocity * (2 + pathCurvature * robotWidth) / 2;
+        speeds[1] = velocity * (2 - pathCurvature * robotWidth) / 2;
+        return speeds;
     }
 
     /**
@@ -135,6 +289,7 @@ public class PurePursuitController {
      */
     public void reset() {
         lastClosestIndex = 0;
+        lastClosestT = 0;
         lastLookaheadIndex = 0;
     }
 
@@ -143,6 +298,8 @@ public class PurePursuitController {
      * @return whether the PurePursuitController has finished following the path
      */
     public boolean done() {
-        return closestPoint().equals(path.get(path.size() - 1));
+        readPose();
+        closestPoint();
+        return path.size() < 2 || (lastClosestIndex == path.size() - 2 && lastClosestT > 0.5);
     }
 }
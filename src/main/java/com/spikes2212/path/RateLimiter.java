@@ -24,16 +24,38 @@ public class RateLimiter {
     }
 
     public double getMaxChange() {
-        return maxAcceleration * period;
+        return getMaxChange(period);
     }
 
-    private double clampRate(double rate) {
-        double maxRate = getMaxChange();
-        return Math.max(-maxRate, Math.min(maxRate, rate));
+    /**
+     * returns the maximum change in velocity over the given time
+     * @param dt the time, in seconds
+     * @return the maximum change in velocity
+     */
+    public double getMaxChange(double dt) {
+        return maxAcceleration * dt;
     }
 
+    /**
+     * Limits the change of the velocity, assuming the period given in the constructor passed since the last call.
+     *
+     * @param targetVelocity the velocity to approach
+     * @return the limited velocity
+     */
     public double calculate(double targetVelocity) {
-        lastVelocity = lastVelocity + clampRate(targetVelocity - lastVelocity);
+        return calculate(targetVelocity, period);
+    }
+
+    /**
+     * Limits the change of the velocity by the time which actually passed since the last call.
+     *
+     * @param targetVelocity the velocity to approach
+     * @param dt             the time since the last call, in seconds
+     * @return the limited velocity
+     */
+    public double calculate(double targetVelocity, double dt) {
+        double maxChange = getMaxChange(Math.max(dt, 0));
+        lastVelocity += Math.max(-maxChange, Math.min(maxChange, targetVelocity - lastVelocity));
         return lastVelocity;
     }
 }
@@ -0,0 +1,140 @@
+package com.spikes2212.path;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A coarse spatial index of the segments of a {@link PathBuffer}, used by {@link PurePursuitController}
+ * in order to find the robot on the path when it is not near where it was last found.
+ * <p>
+ * Every segment is stored in each square cell its bounding box touches. Queries only look at the cell
+ * of the given coordinates and the cells around it.
+ */
+class SegmentGrid {
+
+    /**
+     * The maximal number of cells along the longer side of the path's bounding box.
+     */
+    private static final int MAX_CELLS_PER_SIDE = 256;
+
+    private final PathBuffer path;
+    private final double cellSize;
+
+    /**
+     * The sorted keys of all of the non empty cells.
+     */
+    private final long[] keys;
+
+    /**
+     * The index in {@link #segments} where each cell's segments start. Has an extra last element.
+     */
+    private final int[] starts;
+
+    /**
+     * The segments of all of the cells, in ascending order within each cell.
+     */
+    private final int[] segments;
+
+    /**
+     * The result of the last query.
+     */
+    private int segment;
+    private double t;
+
+    /**
+     * Constructs a grid whose cells are at least {@code minCellSize} wide, and are made larger if needed
+     * so that the grid has at most {@value #MAX_CELLS_PER_SIDE} cells along each side of the path.
+     */
+    SegmentGrid(PathBuffer path, double minCellSize) {
+        if(minCellSize <= 0) throw new IllegalArgumentException("minCellSize must be positive");
+        this.path = path;
+        this.cellSize = Math.max(minCellSize, extent(path) / MAX_CELLS_PER_SIDE);
+        Map<Long, List<Integer>> cells = new TreeMap<>();
+        int count = 0;
+        for(int i = 0; i < path.size() - 1; i++) {
+            int minX = cell(Math.min(path.getX(i), path.getX(i + 1)));
+            int maxX = cell(Math.max(path.getX(i), path.getX(i + 1)));
+            int minY = cell(Math.min(path.getY(i), path.getY(i + 1)));
+            int maxY = cell(Math.max(path.getY(i), path.getY(i + 1)));
+            for(int cx = minX; cx <= maxX; cx++) {
+                for(int cy = minY; cy <= maxY; cy++) {
+                    cells.computeIfAbsent(key(cx, cy), k -> new ArrayList<>()).add(i);
+                    count++;
+                }
+            }
+        }
+        keys = new long[cells.size()];
+        starts = new int[cells.size() + 1];
+        segments = new int[count];
+        int cell = 0, index = 0;
+        for(Map.Entry<Long, List<Integer>> entry : cells.entrySet()) {
+            keys[cell] = entry.getKey();
+            starts[cell++] = index;
+            for(int segment : entry.getValue()) {
+                segments[index++] = segment;
+            }
+        }
+        starts[cell] = index;
+    }
+
+    private static double extent(PathBuffer path) {
+        double minX = Double.POSITIVE_INFINITY, maxX = Double.NEGATIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+        for(int i = 0; i < path.size(); i++) {
+            minX = Math.min(minX, path.getX(i));
+            maxX = Math.max(maxX, path.getX(i));
+            minY = Math.min(minY, path.getY(i));
+            maxY = Math.max(maxY, path.getY(i));
+        }
+        return path.size() == 0 ? 0 : Math.max(maxX - minX, maxY - minY);
+    }
+
+    private int cell(double coordinate) {
+        return (int)Math.floor(coordinate / cellSize);
+    }
+
+    private static long key(int cx, int cy) {
+        return ((long)cx << 32) | (cy & 0xffffffffL);
+    }
+
+    /**
+     * Finds the segment closest to the given coordinates out of the segments in the surrounding cells,
+     * ignoring segments before {@code fromSegment}.
+     *
+     * @return whether any segment was found, in which case it is available from {@link #getSegment()}
+     * and {@link #getT()}
+     */
+    boolean find(double x, double y, int fromSegment) {
+        int cx = cell(x), cy = cell(y);
+        double minDistance = Double.POSITIVE_INFINITY;
+        for(int i = cx - 1; i <= cx + 1; i++) {
+            for(int j = cy - 1; j <= cy + 1; j++) {
+                int cell = Arrays.binarySearch(keys, key(i, j));
+                if(cell < 0) continue;
+                for(int k = starts[cell]; k < starts[cell + 1]; k++) {
+                    int candidate = segments[k];
+                    if(candidate < fromSegment) continue;
+                    double candidateT = path.project(candidate, x, y);
+                    double distance = path.distanceSquared(candidate, candidateT, x, y);
+                    if(distance < minDistance || (distance == minDistance && candidate < segment)) {
+                        minDistance = distance;
+                        segment = candidate;
+                        t = candidateT;
+                    }
+                }
+            }
+        }
+        return minDistance != Double.POSITIVE_INFINITY;
+    }
+
+    int getSegment() {
+        return segment;
+    }
+
+    double getT() {
+        return t;
+    }
+}
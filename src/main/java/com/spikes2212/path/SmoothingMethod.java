@@ -0,0 +1,19 @@
+package com.spikes2212.path;
+
+/**
+ * The algorithms {@link Paths} can use in order to smooth a filled path.
+ */
+public enum SmoothingMethod {
+
+    /**
+     * Repeatedly nudges every point towards its original location and towards its neighbours
+     * until the total change of a pass drops below the smoothing tolerance.
+     */
+    ITERATIVE,
+
+    /**
+     * Solves the tridiagonal system the iterative method converges to directly, in a single O(n) pass per axis.
+     * The smoothing tolerance is ignored.
+     */
+    DIRECT
+}
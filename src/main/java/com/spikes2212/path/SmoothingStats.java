@@ -0,0 +1,46 @@
+package com.spikes2212.path;
+
+/**
+ * This class holds statistics about a single smoothing run of {@link Paths}.
+ * It can be passed to {@link Paths#generate} in order to compare the different {@link SmoothingMethod}s.
+ */
+public class SmoothingStats {
+
+    /**
+     * The method used for smoothing.
+     */
+    private SmoothingMethod method;
+
+    /**
+     * The amount of passes made over the path.
+     */
+    private int iterations;
+
+    /**
+     * The time the smoothing took, in seconds.
+     */
+    private double time;
+
+    public SmoothingMethod getMethod() {
+        return method;
+    }
+
+    public int getIterations() {
+        return iterations;
+    }
+
+    public double getTime() {
+        return time;
+    }
+
+    void set(SmoothingMethod method, int iterations, double time) {
+        this.method = method;
+        this.iterations = iterations;
+        this.time = time;
+    }
+
+    @Override
+    public String toString() {
+        return method + ": " + iterations + " iterations in " + time + " seconds";
+    }
+}
@@ -0,0 +1,209 @@
+package com.spikes2212.path;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * This class generates paths by fitting a C2 continuous quintic Hermite spline through the given points.
+ * <p>
+ * Unlike {@link Paths}, the curvature of every point is calculated analytically from the spline's
+ * derivatives, and the points are sampled at uniform arc length intervals. The generated points are
+ * therefore usable with a much larger spacing than the one {@link Paths} needs.
+ * Every given point is on the final path.
+ */
+public class SplinePaths {
+
+    /**
+     * Gauss-Legendre quadrature nodes and weights on [-1, 1], used to integrate the arc length.
+     */
+    private static final double[] GAUSS_NODES = {-0.9061798459386640, -0.5384693101056831, 0,
+            0.5384693101056831, 0.9061798459386640};
+    private static final double[] GAUSS_WEIGHTS = {0.2369268850561891, 0.4786286704993665, 0.5688888888888889,
+            0.4786286704993665, 0.2369268850561891};
+
+    /**
+     * The amount of intervals the arc length of every segment is tabulated at.
+     */
+    private static final int ARC_LENGTH_INTERVALS = 16;
+
+    /**
+     * Generates a spline path into the given {@link PathBuffer}. The buffer is cleared before the path is generated.
+     *
+     * @param target          the buffer to generate the path into
+     * @param path            the points the path should go through
+     * @param spacing         the arc length between two consecutive points on the path
+     * @param maxVelocity     the robot's maximum velocity
+     * @param turningConstant speed constant at curves (the higher it is, the faster you turn)
+     * @param maxAcceleration the robot's maximum acceleration
+     * @return the given buffer
+     */
+    public static PathBuffer generate(PathBuffer target, List<Waypoint> path, double spacing, double maxVelocity,
+                                      double turningConstant, double maxAcceleration) {
+        target.clear();
+        double[] px = new double[path.size()], py = new double[path.size()];
+        int n = 0;
+        for(Waypoint w : path) {
+            if(n > 0 && px[n - 1] == w.getX() && py[n - 1] == w.getY()) continue;
+            px[n] = w.getX();
+            py[n] = w.getY();
+            n++;
+        }
+        if(n < 2) {
+            if(n == 1) target.add(px[0], py[0]);
+            return target;
+        }
+        double[][] cx = coefficients(px, n), cy = coefficients(py, n);
+        double[][] lengths = new double[n - 1][];
+        double totalLength = 0;
+        for(int i = 0; i < n - 1; i++) {
+            lengths[i] = arcLengthTable(cx[i], cy[i]);
+            totalLength += lengths[i][ARC_LENGTH_INTERVALS];
+        }
+
+        target.ensureCapacity((int)(totalLength / spacing) + 2);
+        int segment = 0;
+        double segmentStart = 0;
+        for(double s = 0; s < totalLength; s += spacing) {
+            while(segment < n - 2 && s > segmentStart + lengths[segment][ARC_LENGTH_INTERVALS]) {
+                segmentStart += lengths[segment][ARC_LENGTH_INTERVALS];
+                segment++;
+            }
+            double t = parameterAt(cx[segment], cy[segment], lengths[segment], s - segmentStart);
+            addPoint(target, cx[segment], cy[segment], t, s);
+        }
+        addPoint(target, cx[n - 2], cy[n - 2], 1, totalLength);
+
+        Paths.calculateMaxVelocities(target, maxVelocity, turningConstant);
+        Paths.smoothVelocities(target, maxAcceleration);
+        return target;
+    }
+
+    /**
+     * Generates a spline path.
+     *
+     * @param path            the points the path should go through
+     * @param spacing         the arc length between two consecutive points on the path
+     * @param maxVelocity     the robot's maximum velocity
+     * @param turningConstant speed constant at curves (the higher it is, the faster you turn)
+     * @param maxAcceleration the robot's maximum acceleration
+     * @return the generated path
+     */
+    public static List<Waypoint> generate(List<Waypoint> path, double spacing, double maxVelocity,
+                                          double turningConstant, double maxAcceleration) {
+        return generate(new PathBuffer(), path, spacing, maxVelocity, turningConstant, maxAcceleration).toList();
+    }
+
+    /**
+     * Generates a spline path.
+     *
+     * @param spacing         the arc length between two consecutive points on the path
+     * @param maxVelocity     the robot's maximum velocity
+     * @param turningConstant speed constant at curves (the higher it is, the faster you turn)
+     * @param maxAcceleration the robot's maximum acceleration
+     * @param path            the points the path should go through
+     * @return the generated path
+     */
+    public static List<Waypoint> generate(double spacing, double maxVelocity, double turningConstant,
+                                          double maxAcceleration, Waypoint... path) {
+        return generate(Arrays.asList(path), spacing, maxVelocity, turningConstant, maxAcceleration);
+    }
+
+    /**
+     * Calculates the polynomial coefficients of every segment of a single axis.
+     * The first derivatives at the points are estimated with central differences, and the second
+     * derivatives are averaged from the cubic Hermite segments on both sides of each point, so the
+     * spline is continuous up to its second derivative.
+     */
+    private static double[][] coefficients(double[] p, int n) {
+        double[] v = new double[n];
+        v[0] = p[1] - p[0];
+        v[n - 1] = p[n - 1] - p[n - 2];
+        for(int i = 1; i < n - 1; i++) {
+            v[i] = (p[i + 1] - p[i - 1]) / 2;
+        }
+        double[] a = new double[n];
+        for(int i = 0; i < n - 1; i++) {
+            double start = 6 * (p[i + 1] - p[i]) - 4 * v[i] - 2 * v[i + 1];
+            double end = -6 * (p[i + 1] - p[i]) + 2 * v[i] + 4 * v[i + 1];
+            a[i] = i == 0 ? start : (a[i] + start) / 2;
+            a[i + 1] = end;
+        }
+        double[][] c = new double[n - 1][];
+        for(int i = 0; i < n - 1; i++) {
+            double p0 = p[i], p1 = p[i + 1], v0 = v[i], v1 = v[i + 1], a0 = a[i], a1 = a[i + 1];
+            c[i] = new double[]{
+                    p0,
+                    v0,
+                    a0 / 2,
+                    -10 * p0 - 6 * v0 - 1.5 * a0 + 0.5 * a1 - 4 * v1 + 10 * p1,
+                    15 * p0 + 8 * v0 + 1.5 * a0 - a1 + 7 * v1 - 15 * p1,
+                    -6 * p0 - 3 * v0 - 0.5 * a0 + 0.5 * a1 - 3 * v1 + 6 * p1
+            };
+        }
+        return c;
+    }
+
+    private static double value(double[] c, double t) {
+        return c[0] + t * (c[1] + t * (c[2] + t * (c[3] + t * (c[4] + t * c[5]))));
+    }
+
+    private static double derivative(double[] c, double t) {
+        return c[1] + t * (2 * c[2] + t * (3 * c[3] + t * (4 * c[4] + t * 5 * c[5])));
+    }
+
+    private static double secondDerivative(double[] c, double t) {
+        return 2 * c[2] + t * (6 * c[3] + t * (12 * c[4] + t * 20 * c[5]));
+    }
+
+    private static double speed(double[] cx, double[] cy, double t) {
+        return Math.hypot(derivative(cx, t), derivative(cy, t));
+    }
+
+    private static double arcLength(double[] cx, double[] cy, double from, double to) {
+        double half = (to - from) / 2, middle = (to + from) / 2, length = 0;
+        for(int i = 0; i < GAUSS_NODES.length; i++) {
+            length += GAUSS_WEIGHTS[i] * speed(cx, cy, middle + half * GAUSS_NODES[i]);
+        }
+        return length * half;
+    }
+
+    /**
+     * Tabulates the arc length of a segment from its start to every interval boundary.
+     */
+    private static double[] arcLengthTable(double[] cx, double[] cy) {
+        double[] table = new double[ARC_LENGTH_INTERVALS + 1];
+        for(int i = 0; i < ARC_LENGTH_INTERVALS; i++) {
+            table[i + 1] = table[i] + arcLength(cx, cy, (double)i / ARC_LENGTH_INTERVALS,
+                    (double)(i + 1) / ARC_LENGTH_INTERVALS);
+        }
+        return table;
+    }
+
+    /**
+     * Finds the spline parameter at the given arc length along a segment using Newton's method,
+     * starting from the matching interval of the arc length table.
+     */
+    private static double parameterAt(double[] cx, double[] cy, double[] table, double length) {
+        int interval = 0;
+        while(interval < ARC_LENGTH_INTERVALS - 1 && table[interval + 1] < length) interval++;
+        double from = (double)interval / ARC_LENGTH_INTERVALS, to = (double)(interval + 1) / ARC_LENGTH_INTERVALS;
+        double intervalLength = table[interval + 1] - table[interval];
+        double t = intervalLength > 0 ? from + (to - from) * (length - table[interval]) / intervalLength : from;
+        for(int i = 0; i < 8; i++) {
+            double speed = speed(cx, cy, t);
+            if(speed == 0) break;
+            double error = table[interval] + arcLength(cx, cy, from, t) - length;
+            t = Math.max(from, Math.min(to, t - error / speed));
+            if(Math.abs(error) < 1e-9) break;
+        }
+        return t;
+    }
+
+    private static void addPoint(PathBuffer target, double[] cx, double[] cy, double t, double distance) {
+        double dx = derivative(cx, t), dy = derivative(cy, t);
+        double ddx = secondDerivative(cx, t), ddy = secondDerivative(cy, t);
+        double speed = Math.hypot(dx, dy);
+        double curvature = speed == 0 ? 0 : Math.abs(dx * ddy - dy * ddx) / (speed * speed * speed);
+        target.add(value(cx, t), value(cy, t), 0, distance, curvature);
+    }
+}
@@ -0,0 +1,177 @@
+package com.spikes2212.path;
+
+/**
+ * This class represents a path with timing: the state the robot should be in at every point in time.
+ * <p>
+ * The velocities of the path are limited by both an acceleration (forward) and a deceleration (backward) pass,
+ * every point is given a timestamp, and the path is then resampled on a uniform time grid. Sampling the
+ * trajectory at a given time is therefore a constant time lookup, with no search along the path.
+ */
+public class Trajectory {
+
+    /**
+     * The state of the robot at a point in time along a {@link Trajectory}.
+     * Instances are mutable so they can be reused between samples.
+     */
+    public static class State {
+        private double time, x, y, v, d, curvature;
+
+        public double getTime() {
+            return time;
+        }
+
+        public double getX() {
+            return x;
+        }
+
+        public double getY() {
+            return y;
+        }
+
+        public double getV() {
+            return v;
+        }
+
+        public double getD() {
+            return d;
+        }
+
+        public double getCurvature() {
+            return curvature;
+        }
+
+        @Override
+        public String toString() {
+            return "t: " + time + " x: " + x + " y: " + y + " v: " + v;
+        }
+    }
+
+    /**
+     * The time between two consecutive samples, in seconds.
+     */
+    private final double period;
+
+    /**
+     * The time it takes to follow the whole trajectory, in seconds.
+     */
+    private final double totalTime;
+
+    private final double[] x, y, v, d, curvature;
+
+    /**
+     * creates a new {@link Trajectory} from the given path. The path itself is not modified.
+     * @param path the path, with its maximum velocities already calculated
+     * @param maxAcceleration the robot's maximum acceleration
+     * @param period the time between two consecutive samples of the trajectory
+     */
+    public Trajectory(PathBuffer path, double maxAcceleration, double period) {
+        this.period = period;
+        int n = path.size();
+        double[] velocities = new double[n];
+        double[] timestamps = new double[n];
+        for(int i = 0; i < n; i++) {
+            velocities[i] = path.getV(i);
+        }
+        if(n > 0) {
+            velocities[0] = 0;
+            velocities[n - 1] = 0;
+        }
+        for(int i = 1; i < n; i++) {
+            velocities[i] = Math.min(velocities[i],
+                    Math.sqrt(velocities[i - 1] * velocities[i - 1] + 2 * maxAcceleration * path.distance(i, i - 1)));
+        }
+        for(int i = n - 2; i >= 0; i--) {
+            velocities[i] = Math.min(velocities[i],
+                    Math.sqrt(velocities[i + 1] * velocities[i + 1] + 2 * maxAcceleration * path.distance(i, i + 1)));
+        }
+        for(int i = 1; i < n; i++) {
+            double averageVelocity = (velocities[i - 1] + velocities[i]) / 2;
+            double distance = path.distance(i, i - 1);
+            timestamps[i] = timestamps[i - 1] + (averageVelocity > 0 ? distance / averageVelocity : 0);
+        }
+        totalTime = n > 0 ? timestamps[n - 1] : 0;
+
+        int samples = (int)Math.ceil(totalTime / period) + 1;
+        x = new double[samples];
+        y = new double[samples];
+        v = new double[samples];
+        d = new double[samples];
+        curvature = new double[samples];
+        if(n == 1) {
+            x[0] = path.getX(0);
+            y[0] = path.getY(0);
+        }
+        if(n < 2) return;
+        int segment = 0;
+        for(int k = 0; k < samples; k++) {
+            double time = Math.min(k * period, totalTime);
+            while(segment < n - 2 && timestamps[segment + 1] <= time) segment++;
+            double segmentTime = timestamps[segment + 1] - timestamps[segment];
+            double t = time - timestamps[segment];
+            double acceleration = segmentTime > 0 ? (velocities[segment + 1] - velocities[segment]) / segmentTime : 0;
+            double length = path.distance(segment, segment + 1);
+            double fraction = length > 0 ?
+                    Math.min(1, (velocities[segment] * t + acceleration * t * t / 2) / length) : 1;
+            x[k] = lerp(path.getX(segment), path.getX(segment + 1), fraction);
+            y[k] = lerp(path.getY(segment), path.getY(segment + 1), fraction);
+            v[k] = velocities[segment] + acceleration * t;
+            d[k] = lerp(path.getD(segment), path.getD(segment + 1), fraction);
+            curvature[k] = lerp(path.getCurvature(segment), path.getCurvature(segment + 1), fraction);
+        }
+    }
+
+    /**
+     * creates a new {@link Trajectory} from the given path, sampled every 20 milliseconds.
+     * @param path the path, with its maximum velocities already calculated
+     * @param maxAcceleration the robot's maximum acceleration
+     */
+    public Trajectory(PathBuffer path, double maxAcceleration) {
+        this(path, maxAcceleration, 0.02);
+    }
+
+    private static double lerp(double from, double to, double fraction) {
+        return from + (to - from) * fraction;
+    }
+
+    public double getTotalTime() {
+        return totalTime;
+    }
+
+    public double getPeriod() {
+        return period;
+    }
+
+    /**
+     * Writes the state of the robot at the given time into {@code state}, interpolating between the two
+     * closest samples. Times outside of the trajectory are clamped to its start and end.
+     * The last sample is at the end of the trajectory, which may be less than a period after the one before it.
+     *
+     * @param time the time since the start of the trajectory, in seconds
+     * @param state the object to write the state into
+     * @return the given state
+     */
+    public State sample(double time, State state) {
+        double clamped = Math.max(0, Math.min(totalTime, time));
+        int index = Math.min((int)(clamped / period), x.length - 1);
+        int next = Math.min(index + 1, x.length - 1);
+        double indexTime = index * period;
+        double interval = Math.min(next * period, totalTime) - indexTime;
+        double fraction = interval > 0 ? (clamped - indexTime) / interval : 0;
+        state.time = clamped;
+        state.x = lerp(x[index], x[next], fraction);
+        state.y = lerp(y[index], y[next], fraction);
+        state.v = lerp(v[index], v[next], fraction);
+        state.d = lerp(d[index], d[next], fraction);
+        state.curvature = lerp(curvature[index], curvature[next], fraction);
+        return state;
+    }
+
+    /**
+     * returns the state of the robot at the given time as a new {@link State}
+     * @param time the time since the start of the trajectory, in seconds
+     * @return the state at the given time
+     */
+    public State sample(double time) {
+        return sample(time, new State());
+    }
+}
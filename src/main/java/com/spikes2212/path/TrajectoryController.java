@@ -0,0 +1,109 @@
+package com.spikes2212.path;
+
+import com.spikes2212.util.Suppliers;
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj.geometry.Pose2d;
+
+import java.util.function.DoubleSupplier;
+import java.util.function.Supplier;
+
+/**
+ * This class follows a {@link Trajectory} by the time elapsed since {@link #reset()} was called.
+ * <p>
+ * The target velocity is sampled from the trajectory at the current time, and the robot steers along
+ * the arc towards the point it should reach {@code lookaheadTime} seconds from now, like a
+ * {@link PurePursuitController} with a time based lookahead. No searching along the path is done.
+ */
+public class TrajectoryController implements PathController {
+    private OdometryHandler odometryHandler;
+    private Trajectory trajectory;
+    private double lookaheadTime;
+    private double robotWidth;
+
+    /**
+     * Supplies the current time, in seconds.
+     */
+    private DoubleSupplier time;
+
+    private double startTime;
+    private final Trajectory.State current = new Trajectory.State();
+    private final Trajectory.State lookahead = new Trajectory.State();
+
+    public TrajectoryController(OdometryHandler odometryHandler, Trajectory trajectory, double lookaheadTime,
+                                double robotWidth, DoubleSupplier time) {
+        this.odometryHandler = odometryHandler;
+        this.trajectory = trajectory;
+        this.lookaheadTime = lookaheadTime;
+        this.robotWidth = robotWidth;
+        this.time = time;
+    }
+
+    public TrajectoryController(OdometryHandler odometryHandler, Trajectory trajectory, double lookaheadTime,
+                                double robotWidth, Supplier<Double> time) {
+        this(odometryHandler, trajectory, lookaheadTime, robotWidth, Suppliers.unbox(time));
+    }
+
+    public TrajectoryController(OdometryHandler odometryHandler, Trajectory trajectory, double lookaheadTime,
+                                double robotWidth) {
+        this(odometryHandler, trajectory, lookaheadTime, robotWidth, Timer::getFPGATimestamp);
+    }
+
+    @Override
+    public OdometryHandler getOdometryHandler() {
+        return odometryHandler;
+    }
+
+    public Trajectory getTrajectory() {
+        return trajectory;
+    }
+
+    public void setTrajectory(Trajectory trajectory) {
+        this.trajectory = trajectory;
+    }
+
+    public double getLookaheadTime() {
+        return lookaheadTime;
+    }
+
+    public void setLookaheadTime(double lookaheadTime) {
+        this.lookaheadTime = lookaheadTime;
+    }
+
+    /**
+     * returns the time elapsed since the controller was reset
+     * @return the elapsed time, in seconds
+     */
+    public double getElapsedTime() {
+        return time.getAsDouble() - startTime;
+    }
+
+    @Override
+    public double[] getTargetSpeeds(double[] speeds) {
+        double elapsed = getElapsedTime();
+        trajectory.sample(elapsed, current);
+        trajectory.sample(elapsed + lookaheadTime, lookahead);
+        Pose2d pose = odometryHandler.getPose();
+        double robotX = pose.getTranslation().getY(), robotY = pose.getTranslation().getX();
+        double dx = lookahead.getX() - robotX, dy = lookahead.getY() - robotY;
+        double distance = Math.sqrt(dx * dx + dy * dy);
+        double curvature = distance == 0 ? 0 : PurePursuitController.curvatureTo(robotX, robotY,
+                pose.getRotation().getDegrees(), lookahead.getX(), lookahead.getY(), distance);
+        double velocity = current.getV();
+        speeds[0] = velocity * (2 + curvature * robotWidth) / 2;
+        speeds[1] = velocity * (2 - curvature * robotWidth) / 2;
+        return speeds;
+    }
+
+    /**
+     * Restarts the trajectory from the current time.
+     */
+    @Override
+    public void reset() {
+        startTime = time.getAsDouble();
+    }
+
+    @Override
+    public boolean done() {
+        return getElapsedTime() >= trajectory.getTotalTime();
+    }
+}
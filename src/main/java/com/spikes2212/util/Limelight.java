@@ -1,6 +1,7 @@
 package com.spikes2212.util;
 
 import edu.wpi.first.networktables.*;
+import edu.wpi.first.wpilibj.Timer;
 
 /**
  * A wrapper and interface for the limelight device.
@@ -42,6 +43,11 @@ public class Limelight {
         }
     }
 
+    /**
+     * The latency of capturing an image, which is not included in the pipeline's latency, in milliseconds.
+     */
+    public static final double IMAGE_CAPTURE_LATENCY = 11;
+
     /**
      * The limelight's network table.
      */
@@ -175,6 +181,23 @@ public class Limelight {
         return tl.getDouble(0);
     }
 
+    /**
+     * returns the total latency of the current measurement, from capturing the image until it was published
+     * @return the total latency, in seconds
+     */
+    public double getLatency() {
+        return (getPipelineLatency() + IMAGE_CAPTURE_LATENCY) / 1000;
+    }
+
+    /**
+     * returns the time the image of the current measurement was captured at, in the FPGA time base,
+     * so it can be matched to the robot's pose using {@link com.spikes2212.path.OdometryHandler#getPoseAt(double)}
+     * @return the capture time, in seconds
+     */
+    public double getCaptureTimestamp() {
+        return Timer.getFPGATimestamp() - getLatency();
+    }
+
     public double getShortestFittedBoundingBoxSide() {
         return tshort.getDouble(0);
     }
@@ -0,0 +1,58 @@
+package com.spikes2212.util;
+
+import java.util.function.BooleanSupplier;
+import java.util.function.DoubleSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Adapters from boxed suppliers to primitive suppliers.
+ * <p>
+ * The library stores its inputs as {@link DoubleSupplier}s and {@link BooleanSupplier}s, so reading them
+ * in a control loop does not box. Constructors which still take a boxed {@link Supplier} use these adapters.
+ * Calling {@code this(supplier::get, ...)} instead would resolve back to the boxed overload.
+ * Boxed suppliers which are also {@link VersionedDoubleSupplier}s are passed on as they are, so their
+ * versions are kept.
+ */
+public class Suppliers {
+
+    private Suppliers() {
+    }
+
+    /**
+     * returns a {@link DoubleSupplier} which unboxes the values of the given supplier
+     * @param supplier the boxed supplier, or {@code null}
+     * @return the primitive supplier, or {@code null} if the given supplier is {@code null}
+     */
+    public static DoubleSupplier unbox(Supplier<Double> supplier) {
+        if(supplier instanceof VersionedDoubleSupplier) return (VersionedDoubleSupplier)supplier;
+        return supplier == null ? null : supplier::get;
+    }
+
+    /**
+     * returns a supplier of a constant value, whose version never changes
+     * @param value the value
+     * @return the supplier
+     */
+    public static VersionedDoubleSupplier constant(double value) {
+        return new VersionedDoubleSupplier() {
+            @Override
+            public double getAsDouble() {
+                return value;
+            }
+
+            @Override
+            public int getVersion() {
+                return 0;
+            }
+        };
+    }
+
+    /**
+     * returns a {@link BooleanSupplier} which unboxes the values of the given supplier
+     * @param supplier the boxed supplier, or {@code null}
+     * @return the primitive supplier, or {@code null} if the given supplier is {@code null}
+     */
+    public static BooleanSupplier unboxBoolean(Supplier<Boolean> supplier) {
+        return supplier == null ? null : supplier::get;
+    }
+}
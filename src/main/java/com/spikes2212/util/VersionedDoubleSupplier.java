@@ -0,0 +1,18 @@
+package com.spikes2212.util;
+
+import java.util.function.DoubleSupplier;
+
+/**
+ * A {@link DoubleSupplier} which tells when its value changes, so that finding out whether it changed
+ * doesn't require reading it.
+ *
+ * @see Suppliers#constant(double)
+ */
+public interface VersionedDoubleSupplier extends DoubleSupplier {
+
+    /**
+     * returns the version of the value, which changes whenever the value changes
+     * @return the version of the value
+     */
+    int getVersion();
+}
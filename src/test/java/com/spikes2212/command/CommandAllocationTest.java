@@ -0,0 +1,166 @@
+package com.spikes2212.command;
+
+import com.spikes2212.command.drivetrains.TankDrivetrain;
+import com.spikes2212.command.drivetrains.commands.*;
+import com.spikes2212.command.genericsubsystem.GenericSubsystem;
+import com.spikes2212.command.genericsubsystem.commands.AccelerateGenericSubsystem;
+import com.spikes2212.command.genericsubsystem.commands.MoveGenericSubsystem;
+import com.spikes2212.command.genericsubsystem.commands.MoveGenericSubsystemWithPID;
+import com.spikes2212.control.FeedForwardSettings;
+import com.spikes2212.control.PIDSettings;
+import com.spikes2212.util.Allocations;
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.wpilibj.SpeedController;
+import edu.wpi.first.wpilibj2.command.Command;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks that the commands don't allocate on their execute paths when given primitive suppliers,
+ * so that reading their inputs doesn't box.
+ */
+public class CommandAllocationTest {
+
+    private static class Motor implements SpeedController {
+        private double speed;
+        private boolean inverted;
+
+        @Override
+        public void set(double speed) {
+            this.speed = speed;
+        }
+
+        @Override
+        public double get() {
+            return speed;
+        }
+
+        @Override
+        public void setInverted(boolean isInverted) {
+            inverted = isInverted;
+        }
+
+        @Override
+        public boolean getInverted() {
+            return inverted;
+        }
+
+        @Override
+        public void disable() {
+            speed = 0;
+        }
+
+        @Override
+        public void stopMotor() {
+            speed = 0;
+        }
+
+        @Override
+        public void pidWrite(double output) {
+            set(output);
+        }
+    }
+
+    private static class Subsystem extends GenericSubsystem {
+        private double speed;
+
+        @Override
+        public void apply(double speed) {
+            this.speed = speed;
+        }
+
+        @Override
+        public boolean canMove(double speed) {
+            return true;
+        }
+
+        @Override
+        public void stop() {
+            speed = 0;
+        }
+    }
+
+    /**
+     * The value every supplier supplies, which changes on every tick so that no value is cached.
+     */
+    private double input;
+
+    private TankDrivetrain drivetrain;
+    private GenericSubsystem subsystem;
+    private PIDSettings pidSettings;
+    private FeedForwardSettings feedForwardSettings;
+
+    @BeforeAll
+    public static void initializeHAL() {
+        HAL.initialize(500, 0);
+    }
+
+    @BeforeEach
+    public void setup() {
+        drivetrain = new TankDrivetrain(new Motor(), new Motor());
+        subsystem = new Subsystem();
+        pidSettings = new PIDSettings(() -> 0.5, () -> 0.01, () -> 0.05, () -> 0.1, () -> 1.0);
+        feedForwardSettings = new FeedForwardSettings(() -> 0.1, () -> 0.2, () -> 0.01);
+    }
+
+    private void assertNoAllocations(Command command) {
+        command.initialize();
+        assertEquals(0, Allocations.perRun(() -> {
+            input = (input + 0.001) % 1;
+            command.execute();
+            command.isFinished();
+        }));
+        command.end(false);
+    }
+
+    @Test
+    public void driveTank() {
+        assertNoAllocations(new DriveTank(drivetrain, () -> input, () -> -input, () -> input > 2));
+    }
+
+    @Test
+    public void driveArcade() {
+        assertNoAllocations(new DriveArcade(drivetrain, () -> input, () -> -input, () -> input > 2));
+    }
+
+    @Test
+    public void driveCurvature() {
+        assertNoAllocations(new DriveCurvature(drivetrain, () -> input, () -> -input));
+    }
+
+    @Test
+    public void driveTankWithPID() {
+        assertNoAllocations(new DriveTankWithPID(drivetrain, pidSettings, pidSettings, () -> 1.0, () -> -1.0,
+                () -> input, () -> -input, feedForwardSettings, feedForwardSettings));
+    }
+
+    @Test
+    public void driveArcadeWithPID() {
+        assertNoAllocations(new DriveArcadeWithPID(drivetrain, () -> input, () -> 0.5, () -> 0.3, pidSettings,
+                feedForwardSettings));
+    }
+
+    @Test
+    public void orientWithPID() {
+        assertNoAllocations(new OrientWithPID(drivetrain, () -> input, () -> 0.5, pidSettings, feedForwardSettings));
+    }
+
+    @Test
+    public void moveGenericSubsystem() {
+        assertNoAllocations(new MoveGenericSubsystem(subsystem, () -> input));
+    }
+
+    @Test
+    public void accelerateGenericSubsystem() {
+        assertNoAllocations(new AccelerateGenericSubsystem(subsystem, () -> 0.8, 2));
+    }
+
+    @Test
+    public void moveGenericSubsystemWithPID() {
+        assertNoAllocations(new MoveGenericSubsystemWithPID(subsystem, () -> 0.5, () -> input, pidSettings,
+                feedForwardSettings));
+    }
+}
@@ -0,0 +1,69 @@
+package com.spikes2212.control.noise;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FilterPipelineTest {
+
+    private static final int LENGTH = 2000;
+
+    private final double[] recording = new double[LENGTH];
+
+    @BeforeEach
+    public void record() {
+        Random random = new Random(2212);
+        for(int i = 0; i < LENGTH; i++) {
+            recording[i] = Math.sin(i / 50.0) + random.nextGaussian() * 0.1 + (i % 97 == 0 ? 20 : 0);
+        }
+    }
+
+    private static FilterPipeline pipeline() {
+        return new FilterPipeline.Builder()
+                .clamp(-2, 2)
+                .median(5)
+                .lowPass(10, 50, 2)
+                .rateLimit(10, 0.02)
+                .build();
+    }
+
+    @Test
+    public void batchMatchesSampleBySample() {
+        FilterPipeline batch = pipeline(), sampled = pipeline();
+        double[] out = new double[LENGTH];
+        batch.calculate(recording, out, LENGTH);
+        for(int i = 0; i < LENGTH; i++) {
+            assertEquals(sampled.calculate(recording[i]), out[i], 0);
+        }
+    }
+
+    @Test
+    public void resetRewinds() {
+        FilterPipeline pipeline = pipeline();
+        double[] first = new double[LENGTH], second = new double[LENGTH];
+        pipeline.calculate(recording, first, LENGTH);
+        pipeline.reset();
+        pipeline.calculate(recording, second, LENGTH);
+        assertArrayEquals(first, second);
+    }
+
+    @Test
+    public void rateLimited() {
+        double[] out = new double[LENGTH];
+        pipeline().calculate(recording, out, LENGTH);
+        for(int i = 1; i < LENGTH; i++) {
+            assertTrue(Math.abs(out[i] - out[i - 1]) <= 10 * 0.02 + 1e-9);
+        }
+    }
+
+    @Test
+    public void builderIsSingleUse() {
+        FilterPipeline.Builder builder = new FilterPipeline.Builder().median(5);
+        builder.build();
+        assertThrows(IllegalStateException.class, builder::build);
+        assertThrows(IllegalStateException.class, () -> builder.median(3));
+    }
+}
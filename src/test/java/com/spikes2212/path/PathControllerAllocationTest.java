@@ -0,0 +1,64 @@
+package com.spikes2212.path;
+
+import com.spikes2212.util.Allocations;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Checks that a tick of the path controllers, as called by {@code FollowPath}, doesn't allocate.
+ */
+public class PathControllerAllocationTest {
+
+    private final double[] speeds = new double[2];
+    private double time;
+    private PathBuffer path;
+    private OdometryHandler odometryHandler;
+
+    @BeforeEach
+    public void setup() {
+        path = Paths.generate(new PathBuffer(), Arrays.asList(new Waypoint(0, 0), new Waypoint(0.5, 5),
+                new Waypoint(0, 10)), 0.01, 0.8, 0.001, 2, 1, 1, SmoothingMethod.DIRECT, null);
+        odometryHandler = new OdometryHandler(() -> 0.0, () -> 0.0, () -> 0.0, 0, 0, () -> time);
+    }
+
+    @Test
+    public void purePursuitOnPath() {
+        PurePursuitController controller = new PurePursuitController(odometryHandler, path, 0.3, 1, 0.6);
+        odometryHandler.set(1, 0.05);
+        assertEquals(0, Allocations.perRun(() -> {
+            controller.getTargetSpeeds(speeds);
+            controller.done();
+        }));
+        assertFalse(Double.isNaN(speeds[0]) || Double.isNaN(speeds[1]));
+    }
+
+    @Test
+    public void purePursuitOffPath() {
+        PurePursuitController controller = new PurePursuitController(odometryHandler, path, 0.3, 1, 0.6);
+        odometryHandler.set(8, 2);
+        assertEquals(0, Allocations.perRun(() -> {
+            controller.getTargetSpeeds(speeds);
+            controller.done();
+        }));
+    }
+
+    @Test
+    public void trajectory() {
+        TrajectoryController controller = new TrajectoryController(odometryHandler, new Trajectory(path, 1), 0.3,
+                0.6, () -> time);
+        controller.reset();
+        odometryHandler.set(1, 0.05);
+        double totalTime = controller.getTrajectory().getTotalTime();
+        assertEquals(0, Allocations.perRun(() -> {
+            time = (time + 0.02) % totalTime;
+            controller.getTargetSpeeds(speeds);
+            controller.done();
+        }));
+        assertFalse(Double.isNaN(speeds[0]) || Double.isNaN(speeds[1]));
+    }
+}
@@ -0,0 +1,49 @@
+package com.spikes2212.util;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Measures the memory allocated by code which should not allocate, such as control loop ticks.
+ */
+public final class Allocations {
+
+    /**
+     * The amount of runs before measuring, so that the measured code is compiled.
+     */
+    public static final int WARMUP_RUNS = 20_000;
+
+    /**
+     * The amount of measured runs.
+     */
+    public static final int MEASURED_RUNS = 10_000;
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+
+    private Allocations() {
+    }
+
+    /**
+     * returns the bytes the current thread allocates per run of the given code, after warming it up.
+     * Any allocation is at least 16 bytes, so code which doesn't allocate returns 0
+     * @param code the code to measure
+     * @return the allocated bytes per run
+     */
+    public static long perRun(Runnable code) {
+        for(int i = 0; i < WARMUP_RUNS; i++) {
+            code.run();
+        }
+        long overhead = measure(() -> {
+        });
+        return (measure(code) - overhead) / MEASURED_RUNS;
+    }
+
+    private static long measure(Runnable code) {
+        long thread = Thread.currentThread().getId();
+        long before = THREADS.getThreadAllocatedBytes(thread);
+        for(int i = 0; i < MEASURED_RUNS; i++) {
+            code.run();
+        }
+        return THREADS.getThreadAllocatedBytes(thread) - before;
+    }
+}